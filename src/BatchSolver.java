@@ -0,0 +1,303 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Headless entry point that solves puzzle files in bulk and prints one JSON object per puzzle:
+ * <pre>
+ *   java -cp out BatchSolver [--algorithm bfs|dfs|rdfs|astar|idastar|pbfs|external|portfolio]
+ *       [--workers N] [--threads N] [--time-limit-ms N] [--memory-limit-mb N] [--node-limit N]
+ *       [--cache FILE] [--pack FILE.stkl] [file|dir|-]...
+ * </pre>
+ * Inputs are text or binary ({@code .stk}) puzzle files (see {@link PuzzleIO}), puzzle libraries
+ * ({@code .stkl}, see {@link PuzzleLibrary}), directories of those, or {@code -} for standard input
+ * (text only), which is also the default. Puzzles are solved on a pool of {@code --workers}
+ * threads (default: one per core) and at most twice that many are held in memory at once, so
+ * arbitrarily long streams can be piped through. Results are printed in completion order.
+ * With {@code --cache}, answers are looked up in and added to a {@link SolutionCache} kept in
+ * that file, and cache hits are marked {@code "cached":true}. Puzzles that {@link DeadlockDetector}
+ * rejects before searching carry the rule that fired, e.g. {@code "deadlock":"SEPARATED"}. The
+ * {@code portfolio} algorithm races the single-threaded solvers for an optimal solution (see
+ * {@link PortfolioSolver}) and names the one that won, e.g. {@code "winner":"astar"}.
+ *
+ * <p>With {@code --pack}, nothing is solved: every input puzzle is appended, in input order, to a
+ * new puzzle library written to that file, and one line reports how many were packed.
+ */
+public final class BatchSolver {
+    private final String algorithm;
+    private final int workers;
+    private final int threads;
+    private final Duration timeLimit;
+    private final long memoryLimitBytes;
+    private final long nodeLimit;
+    private final SolutionCache cache;
+    private final PrintStream out;
+
+    private BatchSolver(String algorithm, int workers, int threads, Duration timeLimit, long memoryLimitBytes,
+                        long nodeLimit, SolutionCache cache, PrintStream out) {
+        this.algorithm = algorithm;
+        this.workers = workers;
+        this.threads = threads;
+        this.timeLimit = timeLimit;
+        this.memoryLimitBytes = memoryLimitBytes;
+        this.nodeLimit = nodeLimit;
+        this.cache = cache;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String algorithm = "astar";
+        int workers = Runtime.getRuntime().availableProcessors();
+        int threads = 1;
+        Duration timeLimit = null;
+        long memoryLimitMb = 0;
+        long nodeLimit = 0;
+        Path cacheFile = null;
+        Path packFile = null;
+        List<String> inputs = new ArrayList<>();
+
+        for (int a = 0; a < args.length; a++) {
+            switch (args[a]) {
+                case "--algorithm" -> algorithm = args[++a].toLowerCase(Locale.ROOT);
+                case "--workers" -> workers = Integer.parseInt(args[++a]);
+                case "--threads" -> threads = Integer.parseInt(args[++a]);
+                case "--time-limit-ms" -> timeLimit = Duration.ofMillis(Long.parseLong(args[++a]));
+                case "--memory-limit-mb" -> memoryLimitMb = Long.parseLong(args[++a]);
+                case "--node-limit" -> nodeLimit = Long.parseLong(args[++a]);
+                case "--cache" -> cacheFile = Path.of(args[++a]);
+                case "--pack" -> packFile = Path.of(args[++a]);
+                default -> inputs.add(args[a]);
+            }
+        }
+        if (!List.of("bfs", "dfs", "rdfs", "astar", "idastar", "pbfs", "external", "portfolio").contains(algorithm)) {
+            throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+        if (workers < 1 || threads < 1) {
+            throw new IllegalArgumentException("--workers and --threads must be positive");
+        }
+        long memoryLimitBytes = memoryLimitMb > 0 ? memoryLimitMb << 20 : Runtime.getRuntime().maxMemory() / (2L * workers);
+        if (inputs.isEmpty()) {
+            inputs.add("-");
+        }
+
+        PrintStream out = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+        if (packFile != null) {
+            new BatchSolver(algorithm, workers, threads, timeLimit, memoryLimitBytes, nodeLimit, null, out)
+                    .pack(inputs, packFile);
+            out.flush();
+            return;
+        }
+        SolutionCache cache = cacheFile != null ? SolutionCache.open(cacheFile, SolutionCache.DEFAULT_CAPACITY) : null;
+        new BatchSolver(algorithm, workers, threads, timeLimit, memoryLimitBytes, nodeLimit, cache, out).run(inputs);
+        out.flush();
+        if (cache != null) {
+            cache.save();
+        }
+    }
+
+    /** Receives the puzzles read from the inputs, in input order. */
+    private interface PuzzleSink {
+        void accept(String name, GameState puzzle) throws IOException, InterruptedException;
+    }
+
+    private void run(List<String> inputs) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        Semaphore inFlight = new Semaphore(workers * 2);
+        try {
+            readAll(inputs, (name, puzzle) -> submit(name, puzzle, pool, inFlight));
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+    }
+
+    private void pack(List<String> inputs, Path file) throws IOException, InterruptedException {
+        long count;
+        try (PuzzleLibrary.Writer library = new PuzzleLibrary.Writer(file)) {
+            readAll(inputs, (name, puzzle) -> library.add(puzzle));
+            count = library.size();
+        }
+        emit("{\"library\":" + quote(file.toString()) + ",\"puzzles\":" + count + "}");
+    }
+
+    private void readAll(List<String> inputs, PuzzleSink sink) throws IOException, InterruptedException {
+        for (String input : inputs) {
+            if (input.equals("-")) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+                readText("stdin", in, sink);
+            } else {
+                for (Path file : listFiles(Path.of(input))) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(PuzzleLibrary.EXTENSION)) {
+                        try (PuzzleLibrary library = PuzzleLibrary.open(file)) {
+                            for (long i = 0; i < library.size(); i++) {
+                                sink.accept(file + "#" + i, library.get(i));
+                            }
+                        }
+                    } else if (name.endsWith(PuzzleIO.BINARY_EXTENSION)) {
+                        sink.accept(file + "#0", PuzzleIO.load(file));
+                    } else {
+                        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                            readText(file.toString(), in, sink);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Path> listFiles(Path input) throws IOException {
+        if (!Files.isDirectory(input)) {
+            return List.of(input);
+        }
+        try (Stream<Path> files = Files.walk(input)) {
+            return files.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    private void readText(String source, BufferedReader in, PuzzleSink sink)
+            throws IOException, InterruptedException {
+        for (int index = 0; ; index++) {
+            String name = source + "#" + index;
+            GameState puzzle;
+            try {
+                puzzle = PuzzleIO.readText(in);
+            } catch (IllegalArgumentException e) {
+                emit(errorJson(name, e));
+                return;
+            }
+            if (puzzle == null) {
+                return;
+            }
+            sink.accept(name, puzzle);
+        }
+    }
+
+    private void submit(String name, GameState puzzle, ExecutorService pool, Semaphore inFlight)
+            throws InterruptedException {
+        inFlight.acquire();
+        pool.execute(() -> {
+            try {
+                emit(solve(name, puzzle));
+            } catch (RuntimeException | OutOfMemoryError e) {
+                emit(errorJson(name, e));
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private String solve(String name, GameState puzzle) {
+        if (cache != null) {
+            GameSolver.SearchResult cached = cache.lookup(puzzle);
+            if (cached != null) {
+                return resultJson(name, cached, true, null);
+            }
+        }
+        SearchBudget budget = SearchBudget.of(timeLimit, memoryLimitBytes, nodeLimit);
+        if (algorithm.equals("portfolio")) {
+            PortfolioSolver.PortfolioResult race = PortfolioSolver.solve(puzzle, true, budget);
+            if (cache != null) {
+                cache.record(puzzle, race.result(), true);
+            }
+            return resultJson(name, race.result(), false, race.winner());
+        }
+        GameSolver.SearchResult result = switch (algorithm) {
+            case "bfs" -> GameSolver.solveBFSWithStats(puzzle, budget);
+            case "dfs" -> GameSolver.solveDFSWithStats(puzzle, budget);
+            case "rdfs" -> GameSolver.solveRecursiveDFSWithStats(puzzle, budget);
+            case "idastar" -> GameSolver.solveIDAStarWithStats(puzzle, budget, cache);
+            case "pbfs" -> ParallelBFS.solve(puzzle, threads, budget).result();
+            case "external" -> ExternalBFS.solve(puzzle, memoryLimitBytes, budget).result();
+            default -> GameSolver.solveAStarWithStats(puzzle, budget, cache);
+        };
+        if (cache != null) {
+            cache.record(puzzle, result, !algorithm.equals("dfs") && !algorithm.equals("rdfs"));
+        }
+        return resultJson(name, result, false, null);
+    }
+
+    private String resultJson(String name, GameSolver.SearchResult result, boolean cached, String winner) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("{\"puzzle\":").append(quote(name))
+                .append(",\"algorithm\":").append(quote(algorithm))
+                .append(",\"status\":").append(quote(result.status().name()));
+        if (cached) {
+            sb.append(",\"cached\":true");
+        }
+        if (winner != null) {
+            sb.append(",\"winner\":").append(quote(winner));
+        }
+        if (result.deadlock() != null) {
+            sb.append(",\"deadlock\":").append(quote(result.deadlock().name()));
+        }
+        if (result.solution() != null) {
+            sb.append(",\"length\":").append(result.solution().size()).append(",\"moves\":\"");
+            for (int i = 0; i < result.solution().size(); i++) {
+                sb.append(MoveSequence.MOVE_CHARS[result.solution().moveAt(i)]);
+            }
+            sb.append('"');
+        }
+        sb.append(",\"visited\":").append(result.visitedNodes())
+                .append(",\"expanded\":").append(result.expandedNodes())
+                .append(",\"generated\":").append(result.generatedNodes())
+                .append(",\"timeMs\":").append(result.executionTimeMillis())
+                .append(",\"bytesPerState\":").append(String.format(Locale.ROOT, "%.1f", result.bytesPerState()))
+                .append(metricsJson(result.metrics()))
+                .append('}');
+        return sb.toString();
+    }
+
+    private static String metricsJson(SearchMetrics metrics) {
+        if (metrics == null) {
+            return "";
+        }
+        return String.format(Locale.ROOT,
+                ",\"expansionsPerSec\":%.0f,\"frontierPeak\":%d,\"duplicateRatio\":%.3f,\"allocPerNode\":%.0f",
+                metrics.expansionsPerSecond(), metrics.frontierPeak(), metrics.duplicateRatio(),
+                metrics.allocatedBytesPerNode());
+    }
+
+    private static String errorJson(String name, Throwable e) {
+        return "{\"puzzle\":" + quote(name) + ",\"status\":\"ERROR\",\"error\":" + quote(String.valueOf(e)) + "}";
+    }
+
+    private void emit(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,278 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Microbenchmarks for the move and hashing hot paths, run as a plain main class:
+ * <pre>
+ *   java -cp out Benchmarks [-f filter] [-wi warmupIterations] [-i iterations] [-t millisPerIteration]
+ *       [-fork 1|0]
+ * </pre>
+ * Each benchmark is run for every (size, colors, density) combination on a pool of random boards,
+ * and by default each combination runs in a fresh JVM with the parent's JVM options, so JIT
+ * profiles from one benchmark do not leak into the next ({@code -fork 0} runs them in process).
+ * Score is ns/op with a 99.9% Student's t error margin over the measurement iterations, like JMH's
+ * AverageTime mode, and alloc is heap bytes allocated per op by the benchmark thread, like JMH's
+ * {@code -prof gc} gc.alloc.rate.norm. Setup that is not part of an operation, such as restoring
+ * the board a move starts from, runs for the whole pool before each timed pass and is not counted.
+ * Before any timing, {@link MoveDifferential#check} compares moves against the original
+ * implementation on 2,000 random boards, and the run exits with status 1 if they differ.
+ */
+public final class Benchmarks {
+    private static final int[] SIZES = {5, 10, 20, 64};
+    private static final int[] COLORS = {2, 4, 8, 32};
+    private static final double[] DENSITIES = {0.1, 0.3};
+    private static final int POOL = 256;
+
+    private static volatile long sink;
+
+    // Two-sided 99.9% quantiles of Student's t distribution for 1 to 30 degrees of freedom.
+    private static final double[] T_999 = {
+            636.62, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+            4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+            3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646
+    };
+
+    private interface Op {
+        /** Untimed setup for pool entry {@code i}, run for the whole pool before each timed pass. */
+        default void prepare(int i) {
+        }
+
+        /** Runs one operation on pool entry {@code i} and returns something to keep it alive. */
+        long run(int i);
+    }
+
+    private record Benchmark(String name, Function<Fixture, Op> factory) {}
+
+    /** Random boards and the scratch objects a benchmark needs. */
+    private static final class Fixture {
+        final GameState[] states = new GameState[POOL];
+        final GameState scratch;
+        final GameState[] work = new GameState[POOL]; // boards that ops may change
+        final StateCodec codec;
+        final long[] key;
+        final StateKeySet set;
+        final long[][] keys = new long[POOL][];
+
+        Fixture(int size, int colors, double density, long seed) {
+            Random random = new Random(seed);
+            GameState base = new GameState(size, size);
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    if (random.nextDouble() < 0.15) base.setBarrier(x, y, true);
+                }
+            }
+            // Make sure every color exists so all states share one codec.
+            for (int c = 0; c < colors; c++) {
+                placeRandom(base, random, c);
+            }
+            for (int i = 0; i < POOL; i++) {
+                GameState state = base.copy();
+                for (int y = 0; y < size; y++) {
+                    for (int x = 0; x < size; x++) {
+                        if (!state.isBarrier(x, y) && state.colorAt(x, y) < 0 && random.nextDouble() < density) {
+                            state.addPiece(random.nextInt(colors), x, y);
+                        }
+                    }
+                }
+                states[i] = state;
+            }
+            scratch = base.copy();
+            for (int i = 0; i < POOL; i++) {
+                work[i] = states[i].copy();
+            }
+            codec = StateCodec.forState(base);
+            key = new long[codec.keyLength()];
+            set = new StateKeySet(codec.keyLength());
+            for (int i = 0; i < POOL; i++) {
+                keys[i] = new long[codec.keyLength()];
+                codec.encode(states[i], keys[i], 0);
+                set.add(keys[i], 0);
+            }
+        }
+
+        private static void placeRandom(GameState state, Random random, int color) {
+            for (int attempt = 0; attempt < 1000; attempt++) {
+                int x = random.nextInt(state.getWidth()), y = random.nextInt(state.getHeight());
+                if (!state.isBarrier(x, y) && state.colorAt(x, y) < 0) {
+                    state.addPiece(color, x, y);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static List<Benchmark> benchmarks() {
+        List<Benchmark> list = new ArrayList<>();
+        list.add(new Benchmark("restore", f -> i -> {
+            f.scratch.copyFrom(f.states[i]);
+            return f.scratch.getPieceCount();
+        }));
+        list.add(new Benchmark("move", f -> new Op() {
+            @Override
+            public void prepare(int i) {
+                f.work[i].copyFrom(f.states[i]);
+            }
+
+            @Override
+            public long run(int i) {
+                f.work[i].move(i & 3);
+                return f.work[i].getPieceCount();
+            }
+        }));
+        list.add(new Benchmark("copy", f -> i -> f.states[i].copy().getNumColors()));
+        list.add(new Benchmark("isGameComplete", f -> i -> f.states[i].isGameComplete() ? 1 : 0));
+        list.add(new Benchmark("encode", f -> i -> {
+            f.codec.encode(f.states[i], f.key, 0);
+            return f.key[0];
+        }));
+        list.add(new Benchmark("visitedContains", f -> i -> f.set.contains(f.keys[i], 0) ? 1 : 0));
+        list.add(new Benchmark("heuristic", f -> {
+            MergeHeuristic heuristic = new MergeHeuristic(f.states[0].getBoard());
+            return i -> heuristic.estimate(f.states[i]);
+        }));
+        return list;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String filter = "";
+        int warmups = 3, iterations = 5;
+        long iterationMillis = 200;
+        boolean fork = true;
+        for (int a = 0; a + 1 < args.length; a += 2) {
+            switch (args[a]) {
+                case "-f" -> filter = args[a + 1];
+                case "-wi" -> warmups = Integer.parseInt(args[a + 1]);
+                case "-i" -> iterations = Integer.parseInt(args[a + 1]);
+                case "-t" -> iterationMillis = Long.parseLong(args[a + 1]);
+                case "-fork" -> fork = !args[a + 1].equals("0");
+                case "-run" -> {
+                    // A forked child: one benchmark at "name:size:colors:density", no header.
+                    String[] run = args[a + 1].split(":");
+                    runOne(run[0], Integer.parseInt(run[1]), Integer.parseInt(run[2]), Double.parseDouble(run[3]),
+                            warmups, iterations, iterationMillis);
+                    return;
+                }
+                default -> throw new IllegalArgumentException("Unknown option: " + args[a]);
+            }
+        }
+
+        if (!MoveDifferential.check(2_000, 42, System.out)) {
+            System.exit(1);
+        }
+        System.out.printf(Locale.ROOT, "%-16s %5s %6s %7s %12s %10s %12s%n",
+                "Benchmark", "size", "colors", "density", "ns/op", "error", "alloc B/op");
+        for (Benchmark benchmark : benchmarks()) {
+            if (!benchmark.name().contains(filter)) continue;
+            for (int size : SIZES) {
+                for (int colors : COLORS) {
+                    for (double density : DENSITIES) {
+                        if (fork) {
+                            fork(benchmark.name() + ":" + size + ":" + colors + ":" + density,
+                                    warmups, iterations, iterationMillis);
+                        } else {
+                            runOne(benchmark.name(), size, colors, density, warmups, iterations, iterationMillis);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Runs one benchmark combination in a child JVM that prints its result row to our stdout. */
+    private static void fork(String run, int warmups, int iterations, long iterationMillis)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), Benchmarks.class.getName(),
+                "-wi", String.valueOf(warmups), "-i", String.valueOf(iterations),
+                "-t", String.valueOf(iterationMillis), "-run", run));
+        int status = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (status != 0) {
+            throw new IllegalStateException("Forked benchmark " + run + " exited with status " + status);
+        }
+    }
+
+    private static void runOne(String name, int size, int colors, double density,
+                               int warmups, int iterations, long iterationMillis) {
+        Benchmark benchmark = benchmarks().stream().filter(b -> b.name().equals(name)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown benchmark: " + name));
+        Fixture fixture = new Fixture(size, colors, density, 31L * size + colors);
+        Op op = benchmark.factory().apply(fixture);
+        for (int w = 0; w < warmups; w++) {
+            measure(op, iterationMillis);
+        }
+        double[] scores = new double[iterations];
+        double alloc = 0;
+        for (int m = 0; m < iterations; m++) {
+            double[] r = measure(op, iterationMillis);
+            scores[m] = r[0];
+            alloc += r[1] / iterations;
+        }
+        System.out.printf(Locale.ROOT, "%-16s %5d %6d %7.2f %12.1f %10.1f %12.1f%n",
+                benchmark.name(), size, colors, density, mean(scores), error(scores), alloc);
+    }
+
+    /**
+     * Returns {ns/op, bytes allocated/op} for one timed iteration. Time counts only {@link Op#run};
+     * the allocation counter is read once per iteration, since reading it allocates, so it also
+     * covers {@link Op#prepare}, which should not allocate.
+     */
+    private static double[] measure(Op op, long iterationMillis) {
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000;
+        long ops = 0, acc = 0, nanos = 0;
+        long allocBefore = allocatedBytes();
+        long now;
+        do {
+            for (int i = 0; i < POOL; i++) {
+                op.prepare(i);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < POOL; i++) {
+                acc += op.run(i);
+            }
+            now = System.nanoTime();
+            nanos += now - start;
+            ops += POOL;
+        } while (now < deadline);
+        long allocAfter = allocatedBytes();
+        sink += acc;
+        return new double[]{(double) nanos / ops, (double) (allocAfter - allocBefore) / ops};
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) {
+            return bean.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) sum += v;
+        return sum / values.length;
+    }
+
+    /** Half-width of the 99.9% confidence interval, from Student's t with n - 1 degrees of freedom. */
+    private static double error(double[] values) {
+        if (values.length < 2) return Double.NaN;
+        double mean = mean(values), sq = 0;
+        for (double v : values) sq += (v - mean) * (v - mean);
+        double stdDev = Math.sqrt(sq / (values.length - 1));
+        int df = values.length - 1;
+        double t;
+        if (df <= T_999.length) {
+            t = T_999[df - 1];
+        } else {
+            // Cornish-Fisher expansion around the normal quantile; within 0.01 past 30 degrees.
+            double z = 3.2905;
+            t = z + (z * z * z + z) / (4 * df) + (5 * Math.pow(z, 5) + 16 * z * z * z + 3 * z) / (96.0 * df * df);
+        }
+        return t * stdDev / Math.sqrt(values.length);
+    }
+}
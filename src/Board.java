@@ -0,0 +1,117 @@
+import java.util.Arrays;
+
+/**
+ * Immutable board geometry shared by every GameState created from the same design.
+ * Cells are numbered row by row (index = y * width + x) and stored as bits in long[] masks.
+ */
+final class Board {
+    static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+    static final int[] DX = {0, 0, -1, 1};
+    static final int[] DY = {-1, 1, 0, 0};
+
+    private final int width, height, cells, words;
+    private final long[] barriers;
+    private final long[] validMask;
+    // slideDistances[dir][cell]: free cells between the cell and the nearest barrier or edge in dir
+    private final int[][] slideDistances;
+
+    Board(int width, int height) {
+        this(width, height, new long[wordsFor(width * height)]);
+    }
+
+    private Board(int width, int height, long[] barriers) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Board size must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.cells = width * height;
+        this.words = wordsFor(cells);
+        this.barriers = barriers;
+
+        this.validMask = new long[words];
+        for (int i = 0; i < cells; i++) {
+            validMask[i >>> 6] |= 1L << i;
+        }
+
+        this.slideDistances = new int[4][cells];
+        for (int dir = 0; dir < 4; dir++) {
+            int[] distance = slideDistances[dir];
+            // Visit cells so that each neighbour in dir is done before the cell itself.
+            boolean descending = dir == DOWN || dir == RIGHT;
+            for (int k = 0; k < cells; k++) {
+                int cell = descending ? cells - 1 - k : k;
+                int x = cell % width + DX[dir], y = cell / width + DY[dir];
+                if (x >= 0 && x < width && y >= 0 && y < height && !isBarrier(x, y)) {
+                    distance[cell] = distance[y * width + x] + 1;
+                }
+            }
+        }
+    }
+
+    static int wordsFor(int cells) {
+        return (cells + 63) >>> 6;
+    }
+
+    Board withBarrier(int x, int y, boolean barrier) {
+        checkBounds(x, y);
+        if (isBarrier(x, y) == barrier) {
+            return this;
+        }
+        long[] newBarriers = barriers.clone();
+        int cell = y * width + x;
+        newBarriers[cell >>> 6] ^= 1L << cell;
+        return new Board(width, height, newBarriers);
+    }
+
+    /** A board of the same size whose barriers are exactly the set bits of {@code mask}. */
+    Board withBarriers(long[] mask) {
+        if (mask.length != words) {
+            throw new IllegalArgumentException("Expected " + words + " barrier words, got " + mask.length);
+        }
+        long[] newBarriers = new long[words];
+        for (int i = 0; i < words; i++) {
+            newBarriers[i] = mask[i] & validMask[i];
+        }
+        return Arrays.equals(newBarriers, barriers) ? this : new Board(width, height, newBarriers);
+    }
+
+    int getWidth() { return width; }
+    int getHeight() { return height; }
+    int getCells() { return cells; }
+    int getWords() { return words; }
+
+    /** Signed cell index offset of one step in the given direction. */
+    int offset(int dir) {
+        return DY[dir] * width + DX[dir];
+    }
+
+    boolean isBarrier(int x, int y) {
+        int cell = y * width + x;
+        return (barriers[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    long barrierWord(int i) { return barriers[i]; }
+    long validWord(int i) { return validMask[i]; }
+
+    /** How many cells a lone piece on {@code cell} slides in {@code dir} before a barrier or the edge stops it. */
+    int slideDistance(int dir, int cell) { return slideDistances[dir][cell]; }
+
+    void checkBounds(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") outside " + width + "x" + height + " board");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Board other)) return false;
+        return width == other.width && height == other.height && Arrays.equals(barriers, other.barriers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * width + height) + Arrays.hashCode(barriers);
+    }
+}
@@ -0,0 +1,183 @@
+import java.util.Arrays;
+
+/**
+ * The reflections and rotations of a board that map its barriers onto themselves, used to give
+ * equivalent states one visited-set key. Moves commute with these transforms, and with swapping
+ * color labels, so a state, its mirror images and its recolorings are all the same distance from
+ * the goal. {@link #canonicalKey} encodes the smallest key over the allowed transforms, with the
+ * colors of each transformed state renumbered by their first cell.
+ *
+ * <p>Instances hold scratch buffers and belong to one search thread.
+ */
+final class BoardSymmetry {
+    // Linear part of each transform as (x, y) -> (a*x + b*y, c*x + d*y), in the order identity,
+    // mirror x, mirror y, rotate 180, transpose, anti-transpose, rotate 90, rotate 270.
+    // The last four swap the axes and only exist on square boards.
+    private static final int[][] LINEAR = {
+            {1, 0, 0, 1}, {-1, 0, 0, 1}, {1, 0, 0, -1}, {-1, 0, 0, -1},
+            {0, 1, 1, 0}, {0, -1, -1, 0}, {0, -1, 1, 0}, {0, 1, -1, 0}
+    };
+
+    private final Board board;
+    private final StateCodec codec;
+    private final int[][] cellMaps;  // cellMaps[t][cell]: where transform t sends the cell
+    private final int[][] dirMaps;   // dirMaps[t][dir]: the direction a move in dir becomes
+    private final GameState scratch;
+    private final long[] candidate;
+    private final long[] canonical;
+    private final long[] image;
+    private final int[] firstCell;
+    private final int[] order;
+
+    BoardSymmetry(GameState state) {
+        this.board = state.getBoard();
+        this.codec = StateCodec.forState(state);
+        int width = board.getWidth(), height = board.getHeight();
+        int transforms = width == height ? LINEAR.length : 4;
+
+        int[][] maps = new int[transforms][];
+        int[][] dirs = new int[transforms][];
+        int count = 0;
+        for (int t = 0; t < transforms; t++) {
+            int[] m = LINEAR[t];
+            int[] map = new int[board.getCells()];
+            boolean preserved = true;
+            for (int y = 0; y < height && preserved; y++) {
+                for (int x = 0; x < width; x++) {
+                    int tx = m[0] * x + m[1] * y, ty = m[2] * x + m[3] * y;
+                    // Shift back onto the board: a negative coefficient mirrors within the side.
+                    if (m[0] + m[1] < 0) tx += width - 1;
+                    if (m[2] + m[3] < 0) ty += height - 1;
+                    if (board.isBarrier(x, y) != board.isBarrier(tx, ty)) {
+                        preserved = false;
+                        break;
+                    }
+                    map[y * width + x] = ty * width + tx;
+                }
+            }
+            if (!preserved) continue;
+
+            int[] dir = new int[4];
+            for (int d = 0; d < 4; d++) {
+                int dx = m[0] * Board.DX[d] + m[1] * Board.DY[d];
+                int dy = m[2] * Board.DX[d] + m[3] * Board.DY[d];
+                for (int e = 0; e < 4; e++) {
+                    if (Board.DX[e] == dx && Board.DY[e] == dy) dir[d] = e;
+                }
+            }
+            maps[count] = map;
+            dirs[count] = dir;
+            count++;
+        }
+        this.cellMaps = Arrays.copyOf(maps, count);
+        this.dirMaps = Arrays.copyOf(dirs, count);
+
+        this.scratch = state.copy();
+        this.candidate = new long[codec.keyLength()];
+        this.canonical = new long[codec.keyLength()];
+        this.image = new long[board.getWords()];
+        this.firstCell = new int[state.getNumColors()];
+        this.order = new int[state.getNumColors()];
+    }
+
+    /** Number of allowed transforms, identity included: 1, 2, 4 or 8. */
+    int size() {
+        return cellMaps.length;
+    }
+
+    /**
+     * Writes the canonical key of {@code state}'s equivalence class to {@code key[off..]} and
+     * returns the Zobrist hash of the canonical state, for use as the key's hash.
+     */
+    long canonicalKey(GameState state, long[] key, int off) {
+        long hash = 0;
+        for (int t = 0; t < cellMaps.length; t++) {
+            transform(state, t);
+            codec.encode(scratch, t == 0 ? key : candidate, t == 0 ? off : 0);
+            if (t == 0) {
+                hash = scratch.zobristHash();
+            } else if (Arrays.compareUnsigned(candidate, 0, candidate.length, key, off, off + candidate.length) < 0) {
+                System.arraycopy(candidate, 0, key, off, candidate.length);
+                hash = scratch.zobristHash();
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Overwrites the pieces of {@code out}, a state on the same board with as many colors, with
+     * the canonical state of {@code state}'s class and returns its Zobrist hash.
+     */
+    long canonicalState(GameState state, GameState out) {
+        long hash = canonicalKey(state, canonical, 0);
+        codec.decode(canonical, 0, out);
+        return hash;
+    }
+
+    /**
+     * Rewrites {@code moves}, a solution for {@code from}, as a solution for {@code to}, an
+     * equivalent state. Returns null when the two states are not equivalent.
+     */
+    MoveSequence mapMoves(GameState from, GameState to, MoveSequence moves) {
+        long[] target = new long[codec.keyLength()];
+        transform(to, 0);
+        codec.encode(scratch, target, 0);
+        for (int t = 0; t < cellMaps.length; t++) {
+            transform(from, t);
+            codec.encode(scratch, candidate, 0);
+            if (Arrays.equals(candidate, target)) {
+                MoveSequence.Builder mapped = new MoveSequence.Builder();
+                for (int i = 0; i < moves.size(); i++) {
+                    mapped.add(dirMaps[t][moves.moveAt(i)]);
+                }
+                return mapped.build();
+            }
+        }
+        return null;
+    }
+
+    /** Loads {@code scratch} with transform t of {@code state}, colors renumbered by first cell. */
+    private void transform(GameState state, int t) {
+        int[] map = cellMaps[t];
+        int words = board.getWords();
+        int colors = firstCell.length;
+        for (int c = 0; c < colors; c++) {
+            int first = Integer.MAX_VALUE;
+            for (int i = 0; i < words; i++) {
+                long w = state.colorWord(c, i);
+                while (w != 0) {
+                    first = Math.min(first, map[(i << 6) + Long.numberOfTrailingZeros(w)]);
+                    w &= w - 1;
+                }
+            }
+            firstCell[c] = first;
+            order[c] = c;
+        }
+        // Insertion sort: there are few colors and they are usually almost in order already.
+        for (int a = 1; a < colors; a++) {
+            int c = order[a];
+            int b = a - 1;
+            while (b >= 0 && firstCell[order[b]] > firstCell[c]) {
+                order[b + 1] = order[b];
+                b--;
+            }
+            order[b + 1] = c;
+        }
+
+        for (int label = 0; label < colors; label++) {
+            int c = order[label];
+            Arrays.fill(image, 0L);
+            for (int i = 0; i < words; i++) {
+                long w = state.colorWord(c, i);
+                while (w != 0) {
+                    int cell = map[(i << 6) + Long.numberOfTrailingZeros(w)];
+                    image[cell >>> 6] |= 1L << cell;
+                    w &= w - 1;
+                }
+            }
+            for (int i = 0; i < words; i++) {
+                scratch.setColorWord(label, i, image[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws a GameState. Barriers and grid lines are rendered once into an image compatible with the
+ * screen and only redrawn when the board or its size changes; {@link #refresh} compares the pieces
+ * with those last shown and repaints just the cells that changed, so a move on a large board does
+ * not redraw the whole grid. Cells shrink, down to {@value #MIN_CELL_SIZE} pixels, to fit the
+ * board in the panel, and the cached layer is redrawn when that changes their size.
+ *
+ * <p>For playback a move can also be drawn in flight: between {@link #beginSlide} and
+ * {@link #endSlide} each moving piece is drawn {@link #setSlideProgress} of the way to its target.
+ */
+class BoardView extends JPanel {
+    private static final int MAX_CELL_SIZE = 60;
+    private static final int MIN_CELL_SIZE = 8;
+    private static final int PREFERRED_BOARD_SIZE = 720; // pixels, for boards too big for full-size cells
+
+    private final GameState gameState;
+    private Image background;
+    private Board backgroundBoard;  // board the background was drawn for
+    private int backgroundCellSize;
+    private long[] shown;           // color words as last painted
+    private int shownColors;
+    private Board shownBoard;
+    private int[] targets;          // target cell of each piece during a slide
+    private boolean sliding;
+    private float slideProgress;
+    private final Rectangle slideBounds = new Rectangle();
+
+    BoardView(GameState gameState) {
+        this.gameState = gameState;
+        setBackground(Color.WHITE);
+        int longestSide = Math.max(gameState.getWidth(), gameState.getHeight());
+        int cell = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, PREFERRED_BOARD_SIZE / longestSide));
+        setPreferredSize(new Dimension(cell * gameState.getWidth(), cell * gameState.getHeight()));
+        rememberShown();
+    }
+
+    /** Schedules a repaint of the cells whose piece changed since the last call. */
+    void refresh() {
+        Board board = gameState.getBoard();
+        int words = board.getWords();
+        if (board != shownBoard || gameState.getNumColors() != shownColors) {
+            rememberShown();
+            repaint();
+            return;
+        }
+
+        int width = board.getWidth();
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+        for (int i = 0; i < words; i++) {
+            long changed = 0;
+            for (int c = 0; c < shownColors; c++) {
+                long w = gameState.colorWord(c, i);
+                changed |= shown[c * words + i] ^ w;
+                shown[c * words + i] = w;
+            }
+            while (changed != 0) {
+                int cell = (i << 6) + Long.numberOfTrailingZeros(changed);
+                changed &= changed - 1;
+                int x = cell % width, y = cell / width;
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+            }
+        }
+        // Swing merges dirty regions into one rectangle anyway, so ask for the bounding box.
+        if (maxX >= 0) {
+            int cell = cellSize();
+            repaint(minX * cell, minY * cell, (maxX - minX + 1) * cell, (maxY - minY + 1) * cell);
+        }
+    }
+
+    /** Starts drawing the move in {@code dir}, not yet applied to the state, at progress 0. */
+    void beginSlide(int dir) {
+        Board board = gameState.getBoard();
+        if (targets == null || targets.length != board.getCells()) {
+            targets = new int[board.getCells()];
+        }
+        gameState.slideTargets(dir, targets);
+
+        int width = board.getWidth();
+        int words = board.getWords();
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+        for (int c = 0; c < gameState.getNumColors(); c++) {
+            for (int i = 0; i < words; i++) {
+                long w = gameState.colorWord(c, i);
+                while (w != 0) {
+                    int cell = (i << 6) + Long.numberOfTrailingZeros(w);
+                    w &= w - 1;
+                    int target = targets[cell];
+                    if (target == cell) continue;
+                    minX = Math.min(minX, Math.min(cell % width, target % width));
+                    maxX = Math.max(maxX, Math.max(cell % width, target % width));
+                    minY = Math.min(minY, Math.min(cell / width, target / width));
+                    maxY = Math.max(maxY, Math.max(cell / width, target / width));
+                }
+            }
+        }
+        if (maxX >= 0) {
+            int cell = cellSize();
+            slideBounds.setBounds(minX * cell, minY * cell, (maxX - minX + 1) * cell, (maxY - minY + 1) * cell);
+        } else {
+            slideBounds.setBounds(0, 0, 0, 0);
+        }
+        sliding = true;
+        slideProgress = 0;
+    }
+
+    /** Moves the sliding pieces to {@code progress} (0 to 1) of the way and repaints them. */
+    void setSlideProgress(float progress) {
+        slideProgress = progress;
+        repaint(slideBounds);
+    }
+
+    /** Stops drawing the slide; call it before applying the move and calling {@link #refresh}. */
+    void endSlide() {
+        sliding = false;
+        repaint(slideBounds);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Board board = gameState.getBoard();
+        int size = cellSize();
+        if (background == null || board != backgroundBoard || size != backgroundCellSize) {
+            background = drawBackground(board, size);
+            backgroundBoard = board;
+            backgroundCellSize = size;
+        }
+        g.drawImage(background, 0, 0, null);
+
+        // Only the pieces inside the clip are drawn, plus those in flight.
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        int x0 = clip.x / size, x1 = (clip.x + clip.width - 1) / size;
+        int y0 = clip.y / size, y1 = (clip.y + clip.height - 1) / size;
+        int inset = Math.max(1, size / 12), piece = size - 2 * inset;
+        int width = board.getWidth();
+        int words = board.getWords();
+        for (int c = 0; c < gameState.getNumColors(); c++) {
+            g.setColor(PieceColors.of(c));
+            for (int i = 0; i < words; i++) {
+                long w = gameState.colorWord(c, i);
+                while (w != 0) {
+                    int cell = (i << 6) + Long.numberOfTrailingZeros(w);
+                    w &= w - 1;
+                    int x = cell % width, y = cell / width;
+                    int target = sliding ? targets[cell] : cell;
+                    if (target != cell) {
+                        int px = x * size + Math.round((target % width - x) * size * slideProgress);
+                        int py = y * size + Math.round((target / width - y) * size * slideProgress);
+                        g.fillRect(px + inset, py + inset, piece, piece);
+                        continue;
+                    }
+                    if (x < x0 || x > x1 || y < y0 || y > y1) continue;
+                    g.fillRect(x * size + inset, y * size + inset, piece, piece);
+                }
+            }
+        }
+    }
+
+    /** Side of a cell in pixels: as large as fits the panel, within the size limits. */
+    private int cellSize() {
+        Board board = gameState.getBoard();
+        int fit = Math.min(getWidth() / board.getWidth(), getHeight() / board.getHeight());
+        return Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, fit));
+    }
+
+    private Image drawBackground(Board board, int cell) {
+        int width = board.getWidth() * cell + 1;
+        int height = board.getHeight() * cell + 1;
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        BufferedImage image = gc != null
+                ? gc.createCompatibleImage(width, height)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, width, height);
+
+        // Draw barriers
+        g2d.setColor(Color.GRAY);
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                if (board.isBarrier(x, y)) {
+                    g2d.fillRect(x * cell, y * cell, cell, cell);
+                }
+            }
+        }
+
+        // Draw grid, over the board only
+        g2d.setColor(Color.LIGHT_GRAY);
+        for (int x = 0; x <= board.getWidth(); x++) {
+            g2d.drawLine(x * cell, 0, x * cell, height - 1);
+        }
+        for (int y = 0; y <= board.getHeight(); y++) {
+            g2d.drawLine(0, y * cell, width - 1, y * cell);
+        }
+        g2d.dispose();
+        return image;
+    }
+
+    private void rememberShown() {
+        shownBoard = gameState.getBoard();
+        shownColors = gameState.getNumColors();
+        int words = shownBoard.getWords();
+        shown = new long[shownColors * words];
+        for (int c = 0; c < shownColors; c++) {
+            for (int i = 0; i < words; i++) {
+                shown[c * words + i] = gameState.colorWord(c, i);
+            }
+        }
+    }
+}
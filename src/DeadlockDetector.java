@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Proves from the barrier layout that a state can never be solved. Pieces never leave the region
+ * (4-connected free cells) they are in, and in a region that is a single-file corridor, a line or a
+ * ring, they can never pass each other either. Two rules follow:
+ * <ul>
+ *   <li>{@link Rule#SEPARATED}: some color has pieces in two regions.</li>
+ *   <li>{@link Rule#CORRIDOR_ORDER}: reading the pieces along a corridor and collapsing neighbours
+ *       of the same color, some color is still listed twice. Pieces only merge with their
+ *       neighbour, so whatever stands between the two can never be cleared away.</li>
+ * </ul>
+ * No move changes either fact, so a state is dead exactly when the state it came from was. The
+ * solvers therefore check the start state once and report the rule that fired, instead of
+ * re-checking every child.
+ */
+final class DeadlockDetector {
+    enum Rule {
+        SEPARATED("pieces of one color in separate regions"),
+        CORRIDOR_ORDER("pieces of one color kept apart in a corridor");
+
+        final String description;
+
+        Rule(String description) {
+            this.description = description;
+        }
+    }
+
+    private final Board board;
+    private final int[] region;       // region id per cell, -1 on barriers
+    private final int[][] corridors;  // cells of each corridor region, in order along it
+    private final boolean[] rings;
+
+    DeadlockDetector(Board board) {
+        this.board = board;
+        int cells = board.getCells();
+        this.region = new int[cells];
+        Arrays.fill(region, -1);
+
+        List<int[]> corridorCells = new ArrayList<>();
+        List<Boolean> ringFlags = new ArrayList<>();
+        int[] queue = new int[cells];
+        int regions = 0;
+        for (int start = 0; start < cells; start++) {
+            if (region[start] >= 0 || isBarrier(start)) continue;
+            int id = regions++;
+            int head = 0, tail = 0;
+            int endpoint = -1;
+            boolean corridor = true;
+            region[start] = id;
+            queue[tail++] = start;
+            while (head < tail) {
+                int cell = queue[head++];
+                int degree = 0;
+                for (int dir = 0; dir < 4; dir++) {
+                    if (board.slideDistance(dir, cell) == 0) continue;
+                    degree++;
+                    int next = cell + board.offset(dir);
+                    if (region[next] < 0) {
+                        region[next] = id;
+                        queue[tail++] = next;
+                    }
+                }
+                if (degree > 2) corridor = false;
+                if (degree < 2) endpoint = cell;
+            }
+            // A single cell holds at most one piece; nothing can go wrong there.
+            if (corridor && tail > 1) {
+                corridorCells.add(walk(endpoint >= 0 ? endpoint : start, tail));
+                ringFlags.add(endpoint < 0);
+            }
+        }
+        this.corridors = corridorCells.toArray(new int[0][]);
+        this.rings = new boolean[corridors.length];
+        for (int i = 0; i < rings.length; i++) {
+            rings[i] = ringFlags.get(i);
+        }
+    }
+
+    /** The rule proving {@code state} unsolvable, or null when neither rule applies. */
+    Rule check(GameState state) {
+        int cells = board.getCells();
+        int words = board.getWords();
+        int[] colorOf = new int[cells];
+        Arrays.fill(colorOf, -1);
+        for (int c = 0; c < state.getNumColors(); c++) {
+            int home = -1;
+            for (int i = 0; i < words; i++) {
+                long w = state.colorWord(c, i);
+                while (w != 0) {
+                    int cell = (i << 6) + Long.numberOfTrailingZeros(w);
+                    w &= w - 1;
+                    colorOf[cell] = c;
+                    if (home < 0) home = region[cell];
+                    else if (region[cell] != home) return Rule.SEPARATED;
+                }
+            }
+        }
+
+        int[] sequence = new int[cells];
+        boolean[] listed = new boolean[state.getNumColors()];
+        for (int k = 0; k < corridors.length; k++) {
+            int length = 0;
+            for (int cell : corridors[k]) {
+                int c = colorOf[cell];
+                if (c >= 0 && (length == 0 || sequence[length - 1] != c)) {
+                    sequence[length++] = c;
+                }
+            }
+            // Around a ring the last piece is also next to the first.
+            if (rings[k]) {
+                while (length > 1 && sequence[length - 1] == sequence[0]) length--;
+            }
+            Arrays.fill(listed, false);
+            for (int i = 0; i < length; i++) {
+                if (listed[sequence[i]]) return Rule.CORRIDOR_ORDER;
+                listed[sequence[i]] = true;
+            }
+        }
+        return null;
+    }
+
+    /** Cells of a corridor region in order, starting from {@code start} (an end, unless a ring). */
+    private int[] walk(int start, int size) {
+        int[] order = new int[size];
+        int previous = -1, cell = start;
+        for (int n = 0; n < size; n++) {
+            order[n] = cell;
+            int next = -1;
+            for (int dir = 0; dir < 4 && next < 0; dir++) {
+                if (board.slideDistance(dir, cell) == 0) continue;
+                int neighbour = cell + board.offset(dir);
+                if (neighbour != previous) next = neighbour;
+            }
+            previous = cell;
+            cell = next;
+        }
+        return order;
+    }
+
+    private boolean isBarrier(int cell) {
+        return board.isBarrier(cell % board.getWidth(), cell / board.getWidth());
+    }
+}
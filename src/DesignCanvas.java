@@ -0,0 +1,132 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+/**
+ * The board designer's grid, painted as a single component. Each cell holds {@link #EMPTY},
+ * {@link #BARRIER} or a color index. Pressing and dragging paints every cell the mouse crosses
+ * with the value of the current tool, repainting only those cells. Resizing keeps the cells that
+ * are still on the board.
+ */
+final class DesignCanvas extends JComponent {
+    static final int EMPTY = -1;
+    static final int BARRIER = -2;
+
+    private static final int MAX_CELL_SIZE = 60;
+    private static final int MIN_CELL_SIZE = 10;
+    private static final int PREFERRED_BOARD_SIZE = 600;
+
+    private final IntSupplier tool;
+    private int width;
+    private int height;
+    private int cellSize;
+    private int[] cells;
+
+    /** {@code tool} gives the value that a press or drag paints. */
+    DesignCanvas(int width, int height, IntSupplier tool) {
+        this.tool = tool;
+        this.cells = new int[0];
+        setOpaque(true);
+        setBoardSize(width, height);
+
+        MouseAdapter painter = new MouseAdapter() {
+            private int lastX, lastY;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                paintAt(e.getX(), e.getY());
+                lastX = e.getX();
+                lastY = e.getY();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                // Fill in the cells between two events, so a fast drag leaves no gaps.
+                int dx = e.getX() - lastX, dy = e.getY() - lastY;
+                int steps = Math.max(1, 2 * Math.max(Math.abs(dx), Math.abs(dy)) / cellSize);
+                for (int s = 1; s <= steps; s++) {
+                    paintAt(lastX + dx * s / steps, lastY + dy * s / steps);
+                }
+                lastX = e.getX();
+                lastY = e.getY();
+            }
+        };
+        addMouseListener(painter);
+        addMouseMotionListener(painter);
+    }
+
+    int get(int x, int y) {
+        return cells[y * width + x];
+    }
+
+    void set(int x, int y, int value) {
+        int cell = y * width + x;
+        if (cells[cell] != value) {
+            cells[cell] = value;
+            repaint(x * cellSize, y * cellSize, cellSize, cellSize);
+        }
+    }
+
+    /** Changes the board size, keeping the cells inside both the old and the new size. */
+    void setBoardSize(int newWidth, int newHeight) {
+        int[] resized = new int[newWidth * newHeight];
+        Arrays.fill(resized, EMPTY);
+        for (int y = 0; y < Math.min(height, newHeight); y++) {
+            System.arraycopy(cells, y * width, resized, y * newWidth, Math.min(width, newWidth));
+        }
+        width = newWidth;
+        height = newHeight;
+        cells = resized;
+        cellSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, PREFERRED_BOARD_SIZE / Math.max(width, height)));
+        setPreferredSize(new Dimension(width * cellSize + 1, height * cellSize + 1));
+        revalidate();
+        repaint();
+    }
+
+    /** Empties the cells holding a color index of {@code numColors} or more. */
+    void clearColorsFrom(int numColors) {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] >= numColors) {
+                cells[i] = EMPTY;
+            }
+        }
+        repaint();
+    }
+
+    void clear() {
+        Arrays.fill(cells, EMPTY);
+        repaint();
+    }
+
+    private void paintAt(int px, int py) {
+        int x = px / cellSize, y = py / cellSize;
+        if (px >= 0 && py >= 0 && x < width && y < height) {
+            set(x, y, tool.getAsInt());
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getParent() != null ? getParent().getBackground() : Color.LIGHT_GRAY);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int x0 = Math.max(0, clip.x / cellSize), x1 = Math.min(width - 1, (clip.x + clip.width) / cellSize);
+        int y0 = Math.max(0, clip.y / cellSize), y1 = Math.min(height - 1, (clip.y + clip.height) / cellSize);
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                int value = cells[y * width + x];
+                g.setColor(value == EMPTY ? Color.WHITE : value == BARRIER ? Color.GRAY : PieceColors.of(value));
+                g.fillRect(x * cellSize, y * cellSize, cellSize, cellSize);
+                g.setColor(Color.GRAY);
+                g.drawRect(x * cellSize, y * cellSize, cellSize, cellSize);
+            }
+        }
+    }
+}
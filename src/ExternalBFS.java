@@ -0,0 +1,458 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * BFS whose frontier and visited states live on disk, for state spaces that do not fit in RAM.
+ *
+ * <p>Every layer is a file of sorted, unique, fixed-width packed keys. Children of a layer are
+ * collected in an in-memory buffer bounded by the memory budget, sorted and written out as runs;
+ * the runs are then merged and subtracted from a sorted file of every state seen so far (delayed
+ * duplicate detection), which yields the next layer. Keys are canonical under the board's
+ * symmetries, as in the in-memory BFS. The path is recovered at the end by scanning the layer
+ * files backwards for a parent of each state, then replayed on the actual start.
+ */
+final class ExternalBFS {
+    private static final int IO_BUFFER_BYTES = 1 << 16;
+    private static final int MAX_FAN_IN = 16;
+
+    private ExternalBFS() {
+    }
+
+    record LayerStats(int depth, long states, long bytesWritten, long bytesRead) {}
+
+    record ExternalSearchResult(GameSolver.SearchResult result, List<LayerStats> layers) {}
+
+    /** Searches with layer files under a fresh temporary directory, deleted afterwards. */
+    static ExternalSearchResult solve(GameState initialState, long memoryBudgetBytes) {
+        return solve(initialState, memoryBudgetBytes, SearchBudget.unlimited());
+    }
+
+    static ExternalSearchResult solve(GameState initialState, long memoryBudgetBytes, SearchBudget budget) {
+        try {
+            Path dir = Files.createTempDirectory("stacked-bfs");
+            try {
+                return solve(initialState, dir, memoryBudgetBytes, budget);
+            } finally {
+                try (Stream<Path> files = Files.list(dir)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                Files.deleteIfExists(dir);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static ExternalSearchResult solve(GameState initialState, Path dir, long memoryBudgetBytes, SearchBudget budget)
+            throws IOException {
+        long startTime = System.nanoTime();
+        GameSolver.SearchResult dead = GameSolver.provedDead("external", initialState, startTime);
+        if (dead != null) {
+            return new ExternalSearchResult(dead, List.of());
+        }
+        StateCodec codec = StateCodec.forState(initialState);
+        int keyLength = codec.keyLength();
+        long recordBytes = (long) keyLength * Long.BYTES;
+        long bufferBytes = memoryBudgetBytes - (long) (MAX_FAN_IN + 2) * IO_BUFFER_BYTES;
+        int bufferRecords = (int) Math.min(Integer.MAX_VALUE / keyLength, Math.max(1024, bufferBytes / recordBytes));
+
+        Search search = new Search(dir, codec, initialState, bufferRecords, budget);
+        List<LayerStats> layers = new ArrayList<>();
+
+        long[] root = new long[keyLength];
+        search.symmetry.canonicalKey(initialState, root, 0);
+        Path layer = search.layerFile(0);
+        Path seen = dir.resolve("seen-0.bin");
+        try (KeyWriter w = new KeyWriter(layer, keyLength); KeyWriter s = new KeyWriter(seen, keyLength)) {
+            w.write(root, 0);
+            s.write(root, 0);
+            search.written += w.bytes + s.bytes;
+        }
+        long totalStates = 1;
+        layers.add(new LayerStats(0, 1, search.written, 0));
+
+        for (int depth = 0; ; depth++) {
+            long writtenBefore = search.written, readBefore = search.read;
+
+            List<Path> runs = new ArrayList<>();
+            long[] goal = search.expand(layer, runs);
+            if (goal != null) {
+                MoveSequence solution = search.reconstruct(goal, depth);
+                return result(solution, search, layers, totalStates, startTime);
+            }
+            if (search.aborted) {
+                return result(null, search, layers, totalStates, startTime);
+            }
+
+            Path merged = search.mergeRuns(runs);
+            Path nextLayer = search.layerFile(depth + 1);
+            Path nextSeen = dir.resolve("seen-" + (depth + 1) + ".bin");
+            long added = search.subtract(merged, seen, nextLayer, nextSeen);
+            Files.deleteIfExists(merged);
+            Files.deleteIfExists(seen);
+            seen = nextSeen;
+            layer = nextLayer;
+            totalStates += added;
+            layers.add(new LayerStats(depth + 1, added, search.written - writtenBefore, search.read - readBefore));
+            if (budget.progressDue()) {
+                budget.report(depth + 1, added, totalStates, search.expanded);
+            }
+            if (added == 0) {
+                return result(null, search, layers, totalStates, startTime);
+            }
+        }
+    }
+
+    private static ExternalSearchResult result(MoveSequence solution, Search search, List<LayerStats> layers,
+                                               long totalStates, long startTime) {
+        long executionTime = (System.nanoTime() - startTime) / 1_000_000;
+        GameSolver.SearchResult result = new GameSolver.SearchResult(solution, (int) Math.min(Integer.MAX_VALUE, totalStates),
+                executionTime, (long) search.buffer.length * Long.BYTES, search.expanded, search.expanded * 4,
+                solution != null ? GameSolver.SearchStatus.SOLVED
+                        : search.aborted ? GameSolver.SearchStatus.LIMIT_REACHED : GameSolver.SearchStatus.NO_SOLUTION);
+        return new ExternalSearchResult(result, List.copyOf(layers));
+    }
+
+    private static final class Search {
+        final Path dir;
+        final StateCodec codec;
+        final int keyLength;
+        final GameState initialState;
+        final GameState scratch;
+        final BoardSymmetry symmetry;
+        final UndoLog undo = new UndoLog();
+        long[] buffer;
+        final int bufferRecords;
+        final SearchBudget budget;
+        long written, read, expanded;
+        int runCounter;
+        boolean aborted;
+
+        Search(Path dir, StateCodec codec, GameState initialState, int bufferRecords, SearchBudget budget) {
+            this.budget = budget;
+            this.dir = dir;
+            this.codec = codec;
+            this.keyLength = codec.keyLength();
+            this.initialState = initialState;
+            this.scratch = initialState.copy();
+            this.symmetry = new BoardSymmetry(initialState);
+            this.bufferRecords = bufferRecords;
+            this.buffer = new long[Math.min(bufferRecords, 4096) * keyLength];
+        }
+
+        Path layerFile(int depth) {
+            return dir.resolve("layer-" + depth + ".bin");
+        }
+
+        /** Expands a layer into sorted runs; returns the key of a goal state in the layer, if any. */
+        long[] expand(Path layer, List<Path> runs) throws IOException {
+            long[] key = new long[keyLength];
+            int count = 0;
+            try (KeyReader r = new KeyReader(layer, keyLength)) {
+                while (r.next(key)) {
+                    codec.decode(key, 0, scratch);
+                    if (scratch.isGameComplete()) {
+                        read += r.bytes;
+                        return key;
+                    }
+                    if (budget.shouldStop(0)) {
+                        aborted = true;
+                        break;
+                    }
+                    expanded++;
+                    for (int i = 0; i < 4; i++) {
+                        if (count == bufferRecords) {
+                            runs.add(writeRun(count));
+                            count = 0;
+                        } else if ((count + 1) * keyLength > buffer.length) {
+                            // Grow towards the budget only as far as the layers actually need.
+                            buffer = Arrays.copyOf(buffer, Math.min(bufferRecords, count * 2) * keyLength);
+                        }
+                        scratch.make(i, undo);
+                        symmetry.canonicalKey(scratch, buffer, count * keyLength);
+                        scratch.unmake(undo);
+                        count++;
+                    }
+                }
+                read += r.bytes;
+            }
+            if (count > 0 && !aborted) {
+                runs.add(writeRun(count));
+            }
+            return null;
+        }
+
+        private Path writeRun(int count) throws IOException {
+            int unique = KeyOrder.sortUnique(buffer, count, keyLength);
+            Path run = dir.resolve("run-" + (runCounter++) + ".bin");
+            try (KeyWriter w = new KeyWriter(run, keyLength)) {
+                for (int j = 0; j < unique; j++) {
+                    w.write(buffer, j * keyLength);
+                }
+                written += w.bytes;
+            }
+            return run;
+        }
+
+        /** Merges sorted runs into one sorted, duplicate-free file, at most MAX_FAN_IN at a time. */
+        Path mergeRuns(List<Path> runs) throws IOException {
+            if (runs.isEmpty()) {
+                Path empty = dir.resolve("run-" + (runCounter++) + ".bin");
+                Files.write(empty, new byte[0]);
+                return empty;
+            }
+            List<Path> pending = new ArrayList<>(runs);
+            while (pending.size() > 1) {
+                List<Path> group = new ArrayList<>(pending.subList(0, Math.min(MAX_FAN_IN, pending.size())));
+                pending.subList(0, group.size()).clear();
+                Path out = dir.resolve("run-" + (runCounter++) + ".bin");
+                mergeGroup(group, out);
+                for (Path p : group) Files.deleteIfExists(p);
+                pending.add(out);
+            }
+            return pending.get(0);
+        }
+
+        private void mergeGroup(List<Path> group, Path out) throws IOException {
+            KeyReader[] readers = new KeyReader[group.size()];
+            long[][] heads = new long[group.size()][keyLength];
+            boolean[] live = new boolean[group.size()];
+            long[] last = null;
+            try (KeyWriter w = new KeyWriter(out, keyLength)) {
+                for (int i = 0; i < readers.length; i++) {
+                    readers[i] = new KeyReader(group.get(i), keyLength);
+                    live[i] = readers[i].next(heads[i]);
+                }
+                while (true) {
+                    int min = -1;
+                    for (int i = 0; i < readers.length; i++) {
+                        if (live[i] && (min < 0 || KeyOrder.compare(heads[i], 0, heads[min], 0, keyLength) < 0)) {
+                            min = i;
+                        }
+                    }
+                    if (min < 0) break;
+                    if (last == null || KeyOrder.compare(heads[min], 0, last, 0, keyLength) != 0) {
+                        w.write(heads[min], 0);
+                        if (last == null) last = new long[keyLength];
+                        System.arraycopy(heads[min], 0, last, 0, keyLength);
+                    }
+                    live[min] = readers[min].next(heads[min]);
+                }
+                written += w.bytes;
+            } finally {
+                for (KeyReader r : readers) {
+                    if (r != null) {
+                        read += r.bytes;
+                        r.close();
+                    }
+                }
+            }
+        }
+
+        /** Writes candidates not in {@code seen} to {@code layerOut} and the union to {@code seenOut}. */
+        long subtract(Path candidates, Path seen, Path layerOut, Path seenOut) throws IOException {
+            long[] a = new long[keyLength], b = new long[keyLength];
+            long added = 0;
+            try (KeyReader ca = new KeyReader(candidates, keyLength); KeyReader sa = new KeyReader(seen, keyLength);
+                 KeyWriter lw = new KeyWriter(layerOut, keyLength); KeyWriter sw = new KeyWriter(seenOut, keyLength)) {
+                boolean hasA = ca.next(a), hasB = sa.next(b);
+                while (hasA || hasB) {
+                    int cmp = !hasA ? 1 : !hasB ? -1 : KeyOrder.compare(a, 0, b, 0, keyLength);
+                    if (cmp < 0) {
+                        lw.write(a, 0);
+                        sw.write(a, 0);
+                        added++;
+                        hasA = ca.next(a);
+                    } else if (cmp > 0) {
+                        sw.write(b, 0);
+                        hasB = sa.next(b);
+                    } else {
+                        sw.write(b, 0);
+                        hasA = ca.next(a);
+                        hasB = sa.next(b);
+                    }
+                }
+                read += ca.bytes + sa.bytes;
+                written += lw.bytes + sw.bytes;
+            }
+            return added;
+        }
+
+        /** Walks back from a goal at {@code depth}, finding in each earlier layer a parent of the current state. */
+        MoveSequence reconstruct(long[] goal, int depth) throws IOException {
+            long[][] keys = new long[depth][]; // keys[d]: the state at depth d + 1
+            long[] current = goal.clone();
+            long[] key = new long[keyLength];
+            long[] child = new long[keyLength];
+            for (int d = depth - 1; d >= 0; d--) {
+                keys[d] = current.clone();
+                boolean found = false;
+                try (KeyReader r = new KeyReader(layerFile(d), keyLength)) {
+                    while (!found && r.next(key)) {
+                        codec.decode(key, 0, scratch);
+                        for (int i = 0; i < 4 && !found; i++) {
+                            scratch.make(i, undo);
+                            symmetry.canonicalKey(scratch, child, 0);
+                            scratch.unmake(undo);
+                            if (Arrays.equals(child, current)) {
+                                System.arraycopy(key, 0, current, 0, keyLength);
+                                found = true;
+                            }
+                        }
+                    }
+                    read += r.bytes;
+                }
+                if (!found) {
+                    throw new IllegalStateException("No parent found in layer " + d);
+                }
+            }
+            return GameSolver.replayPath(initialState.copy(), keys, symmetry);
+        }
+    }
+
+    /** Lexicographic order on fixed-width keys and an in-place sort of a record array. */
+    static final class KeyOrder {
+        private KeyOrder() {
+        }
+
+        static int compare(long[] a, int aOff, long[] b, int bOff, int keyLength) {
+            for (int i = 0; i < keyLength; i++) {
+                int c = Long.compare(a[aOff + i], b[bOff + i]);
+                if (c != 0) return c;
+            }
+            return 0;
+        }
+
+        /** Sorts {@code count} records and drops duplicates; returns the number of unique records. */
+        static int sortUnique(long[] records, int count, int keyLength) {
+            if (keyLength == 1) {
+                Arrays.sort(records, 0, count);
+            } else {
+                quickSort(records, 0, count - 1, keyLength, new long[keyLength]);
+            }
+            int unique = 0;
+            for (int i = 0; i < count; i++) {
+                if (unique == 0 || compare(records, i * keyLength, records, (unique - 1) * keyLength, keyLength) != 0) {
+                    if (unique != i) {
+                        System.arraycopy(records, i * keyLength, records, unique * keyLength, keyLength);
+                    }
+                    unique++;
+                }
+            }
+            return unique;
+        }
+
+        private static void quickSort(long[] a, int lo, int hi, int k, long[] pivot) {
+            while (hi - lo > 16) {
+                int mid = (lo + hi) >>> 1;
+                System.arraycopy(a, mid * k, pivot, 0, k);
+                int i = lo, j = hi;
+                while (i <= j) {
+                    while (compare(a, i * k, pivot, 0, k) < 0) i++;
+                    while (compare(a, j * k, pivot, 0, k) > 0) j--;
+                    if (i <= j) swap(a, i++, j--, k);
+                }
+                // Recurse into the smaller half to bound stack depth.
+                if (j - lo < hi - i) {
+                    quickSort(a, lo, j, k, pivot);
+                    lo = i;
+                } else {
+                    quickSort(a, i, hi, k, pivot);
+                    hi = j;
+                }
+            }
+            for (int i = lo + 1; i <= hi; i++) {
+                for (int j = i; j > lo && compare(a, (j - 1) * k, a, j * k, k) > 0; j--) {
+                    swap(a, j - 1, j, k);
+                }
+            }
+        }
+
+        private static void swap(long[] a, int i, int j, int k) {
+            for (int n = 0; n < k; n++) {
+                long t = a[i * k + n];
+                a[i * k + n] = a[j * k + n];
+                a[j * k + n] = t;
+            }
+        }
+    }
+
+    private static final class KeyWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final int keyLength;
+        long bytes;
+
+        KeyWriter(Path file, int keyLength) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.keyLength = keyLength;
+            int recordBytes = keyLength * Long.BYTES;
+            this.buffer = ByteBuffer.allocateDirect(Math.max(recordBytes, IO_BUFFER_BYTES / recordBytes * recordBytes));
+        }
+
+        void write(long[] key, int off) throws IOException {
+            if (buffer.remaining() < keyLength * Long.BYTES) flush();
+            for (int i = 0; i < keyLength; i++) buffer.putLong(key[off + i]);
+            bytes += (long) keyLength * Long.BYTES;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+
+    private static final class KeyReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final int keyLength;
+        long bytes;
+
+        KeyReader(Path file, int keyLength) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.keyLength = keyLength;
+            int recordBytes = keyLength * Long.BYTES;
+            this.buffer = ByteBuffer.allocateDirect(Math.max(recordBytes, IO_BUFFER_BYTES / recordBytes * recordBytes));
+            this.buffer.flip();
+        }
+
+        boolean next(long[] dest) throws IOException {
+            int recordBytes = keyLength * Long.BYTES;
+            if (buffer.remaining() < recordBytes) {
+                buffer.compact();
+                while (buffer.position() < recordBytes && channel.read(buffer) > 0) {
+                    // keep reading until a whole record is buffered or the file ends
+                }
+                buffer.flip();
+                if (buffer.remaining() < recordBytes) return false;
+            }
+            for (int i = 0; i < keyLength; i++) dest[i] = buffer.getLong();
+            bytes += recordBytes;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
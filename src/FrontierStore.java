@@ -0,0 +1,85 @@
+/**
+ * Open nodes of a search kept as primitives: each entry is a state packed by a {@link StateCodec}
+ * plus its search-tree id and depth, in parallel arrays used as a ring buffer. Entries are added at
+ * the back and {@link #pollFirst} takes them in queue order.
+ * An entry costs {@code 8 * keyLength + 8} bytes and no objects, instead of a GameState per node.
+ */
+final class FrontierStore {
+    private final StateCodec codec;
+    private final int keyLength;
+    private long[] keys;
+    private int[] ids;
+    private int[] depths;
+    private int head;
+    private int size;
+    private int polledDepth;
+
+    FrontierStore(StateCodec codec) {
+        this.codec = codec;
+        this.keyLength = codec.keyLength();
+        this.keys = new long[1024 * keyLength];
+        this.ids = new int[1024];
+        this.depths = new int[1024];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Appends {@code state}, packed, as node {@code id} at {@code depth}. */
+    void add(GameState state, int id, int depth) {
+        if (size == ids.length) {
+            grow();
+        }
+        int slot = (head + size) & (ids.length - 1);
+        codec.encode(state, keys, slot * keyLength);
+        ids[slot] = id;
+        depths[slot] = depth;
+        size++;
+    }
+
+    /** Removes the oldest entry, decodes it into {@code state} and returns its id. */
+    int pollFirst(GameState state) {
+        if (size == 0) {
+            throw new IllegalStateException("Frontier is empty");
+        }
+        int slot = head;
+        head = (head + 1) & (ids.length - 1);
+        size--;
+        codec.decode(keys, slot * keyLength, state);
+        polledDepth = depths[slot];
+        return ids[slot];
+    }
+
+    /** Depth of the entry polled last. */
+    int polledDepth() {
+        return polledDepth;
+    }
+
+    long memoryBytes() {
+        return (long) keys.length * Long.BYTES + 2L * ids.length * Integer.BYTES;
+    }
+
+    /** Doubles the capacity, unwrapping the ring so the entries start at slot 0 again. */
+    private void grow() {
+        int capacity = ids.length;
+        long[] newKeys = new long[2 * capacity * keyLength];
+        int[] newIds = new int[2 * capacity];
+        int[] newDepths = new int[2 * capacity];
+        int first = capacity - head;
+        System.arraycopy(keys, head * keyLength, newKeys, 0, first * keyLength);
+        System.arraycopy(keys, 0, newKeys, first * keyLength, head * keyLength);
+        System.arraycopy(ids, head, newIds, 0, first);
+        System.arraycopy(ids, 0, newIds, first, head);
+        System.arraycopy(depths, head, newDepths, 0, first);
+        System.arraycopy(depths, 0, newDepths, first, head);
+        keys = newKeys;
+        ids = newIds;
+        depths = newDepths;
+        head = 0;
+    }
+}
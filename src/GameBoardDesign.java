@@ -1,16 +1,18 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.*;
-import java.util.ArrayList;
+import java.io.IOException;
 
 class BoardDesignFrame extends JFrame {
     private int width = 2;
     private int height = 2;
     private int numColors = 3;
-    private JPanel designPanel;
-    private ArrayList<ArrayList<Cell>> cells;
+    private static final int MAX_SIZE = 64;
+    private DesignCanvas canvas;
     private JComboBox<String> currentSelectionType;
     private JComboBox<Integer> colorSelector;
+    private JSpinner widthSpinner;
+    private JSpinner heightSpinner;
+    private JSpinner colorsSpinner;
 
     public BoardDesignFrame() {
         super("تصميم الرقعة");
@@ -32,9 +34,13 @@ class BoardDesignFrame extends JFrame {
         mainPanel.add(toolPanel, BorderLayout.CENTER);
 
         // إنشاء لوحة الشبكة
-        createDesignPanel();
-        JScrollPane scrollPane = new JScrollPane(designPanel);
-        scrollPane.setPreferredSize(new Dimension(400, 300));
+        canvas = new DesignCanvas(width, height, this::selectedTool);
+        JPanel canvasHolder = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        canvasHolder.add(canvas);
+        JScrollPane scrollPane = new JScrollPane(canvasHolder);
+        scrollPane.setPreferredSize(new Dimension(640, 480));
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
         mainPanel.add(scrollPane, BorderLayout.SOUTH);
 
         // زر بدء اللعبة
@@ -50,13 +56,13 @@ class BoardDesignFrame extends JFrame {
 
     // إعداد لوحة التحكم
     private void setupControlPanel(JPanel controlPanel) {
-        SpinnerModel widthModel = new SpinnerNumberModel(2, 2, 10, 1);
-        SpinnerModel heightModel = new SpinnerNumberModel(2, 2, 10, 1);
-        SpinnerModel colorsModel = new SpinnerNumberModel(3, 1, 8, 1);
+        SpinnerModel widthModel = new SpinnerNumberModel(2, 2, MAX_SIZE, 1);
+        SpinnerModel heightModel = new SpinnerNumberModel(2, 2, MAX_SIZE, 1);
+        SpinnerModel colorsModel = new SpinnerNumberModel(3, 1, PuzzleIO.MAX_COLORS, 1);
 
-        final JSpinner widthSpinner = new JSpinner(widthModel);
-        final JSpinner heightSpinner = new JSpinner(heightModel);
-        final JSpinner colorsSpinner = new JSpinner(colorsModel);
+        widthSpinner = new JSpinner(widthModel);
+        heightSpinner = new JSpinner(heightModel);
+        colorsSpinner = new JSpinner(colorsModel);
 
         controlPanel.add(new JLabel("العرض:"));
         controlPanel.add(widthSpinner);
@@ -68,13 +74,21 @@ class BoardDesignFrame extends JFrame {
         JButton applyButton = new JButton("تطبيق");
         controlPanel.add(applyButton);
 
-        // إجراء زر "تطبيق" لتحديث الشبكة
+        JButton saveButton = new JButton("حفظ");
+        JButton loadButton = new JButton("تحميل");
+        controlPanel.add(saveButton);
+        controlPanel.add(loadButton);
+        saveButton.addActionListener(e -> savePuzzle());
+        loadButton.addActionListener(e -> loadPuzzle());
+
+        // إجراء زر "تطبيق" لتغيير حجم الشبكة مع الإبقاء على الخلايا الموجودة
         applyButton.addActionListener(e -> {
             width = (Integer) widthSpinner.getValue();
             height = (Integer) heightSpinner.getValue();
             numColors = (Integer) colorsSpinner.getValue();
             updateColorSelector();
-            refreshDesignPanel();
+            canvas.setBoardSize(width, height);
+            canvas.clearColorsFrom(numColors);
         });
     }
 
@@ -83,6 +97,8 @@ class BoardDesignFrame extends JFrame {
         String[] selectionTypes = {"فارغ", "حاجز", "قطعة ملونة"};
         currentSelectionType = new JComboBox<>(selectionTypes);
         colorSelector = new JComboBox<>();
+        colorSelector.setRenderer(new ColorSwatchRenderer());
+        colorSelector.setMaximumRowCount(16);
         updateColorSelector();
 
         toolPanel.add(new JLabel("نوع الخلية:"));
@@ -91,88 +107,85 @@ class BoardDesignFrame extends JFrame {
         toolPanel.add(colorSelector);
     }
 
-    // إنشاء لوحة التصميم (الشبكة)
-    private void createDesignPanel() {
-        designPanel = new JPanel(new GridLayout(height, width, 2, 2));
-        designPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+    // قيمة الخلية التي تُرسم عند النقر أو السحب
+    private int selectedTool() {
+        return switch (currentSelectionType.getSelectedIndex()) {
+            case 1 -> DesignCanvas.BARRIER;
+            case 2 -> colorSelector.getSelectedItem() != null ? (Integer) colorSelector.getSelectedItem() : 0;
+            default -> DesignCanvas.EMPTY;
+        };
+    }
 
-        cells = new ArrayList<>();
-        for (int y = 0; y < height; y++) {
-            ArrayList<Cell> row = new ArrayList<>();
-            for (int x = 0; x < width; x++) {
-                Cell cell = new Cell(x, y);
-                row.add(cell);
-                designPanel.add(cell);
-
-                // إعداد المستمع لكل خلية
-                cell.addMouseListener(new MouseAdapter() {
-                    @Override
-                    public void mouseClicked(MouseEvent e) {
-                        Cell clickedCell = (Cell) e.getSource();
-                        String selection = (String) currentSelectionType.getSelectedItem();
-
-                        if ("فارغ".equals(selection)) {
-                            clickedCell.setType(CellType.EMPTY);
-                        } else if ("حاجز".equals(selection)) {
-                            clickedCell.setType(CellType.BARRIER);
-                        } else if ("قطعة ملونة".equals(selection)) {
-                            clickedCell.setType(CellType.COLORED);
-                            clickedCell.setColorIndex((Integer) colorSelector.getSelectedItem());
-                        }
-                        clickedCell.repaint();
-                    }
-                });
-            }
-            cells.add(row);
+    // تحديث قائمة الألوان المتاحة
+    private void updateColorSelector() {
+        colorSelector.removeAllItems();
+        for (int i = 0; i < numColors; i++) {
+            colorSelector.addItem(i);
+        }
+    }
+
+    // حفظ الرقعة في ملف (ثنائي إذا انتهى الاسم بـ .stk وإلا نصي)
+    private void savePuzzle() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            PuzzleIO.save(createGameState(), chooser.getSelectedFile().toPath());
+        } catch (IOException | RuntimeException ex) {
+            JOptionPane.showMessageDialog(this, "تعذر حفظ الملف: " + ex.getMessage(), "خطأ", JOptionPane.ERROR_MESSAGE);
         }
     }
 
-    // تحديث لوحة التصميم بالكامل عند تغيير الإعدادات
-    private void refreshDesignPanel() {
-        designPanel.removeAll(); // إزالة جميع الخلايا الحالية من اللوحة
-        designPanel.setLayout(new GridLayout(height, width, 2, 2)); // تحديث التخطيط الجديد
+    // تحميل رقعة من ملف وعرضها في لوحة التصميم
+    private void loadPuzzle() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        GameState state;
+        try {
+            state = PuzzleIO.load(chooser.getSelectedFile().toPath());
+        } catch (IOException | RuntimeException ex) {
+            JOptionPane.showMessageDialog(this, "تعذر تحميل الملف: " + ex.getMessage(), "خطأ", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        SpinnerNumberModel widthModel = (SpinnerNumberModel) widthSpinner.getModel();
+        SpinnerNumberModel heightModel = (SpinnerNumberModel) heightSpinner.getModel();
+        SpinnerNumberModel colorsModel = (SpinnerNumberModel) colorsSpinner.getModel();
+        int colors = Math.max(1, state.getNumColors());
+        if (!inRange(widthModel, state.getWidth())
+                || !inRange(heightModel, state.getHeight())
+                || !inRange(colorsModel, colors)) {
+            JOptionPane.showMessageDialog(this, "أبعاد الرقعة خارج الحدود المسموحة في المصمم", "خطأ", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        width = state.getWidth();
+        height = state.getHeight();
+        numColors = colors;
+        widthSpinner.setValue(width);
+        heightSpinner.setValue(height);
+        colorsSpinner.setValue(numColors);
+        updateColorSelector();
+        canvas.setBoardSize(width, height);
+        canvas.clear();
 
-        cells.clear(); // إعادة تهيئة قائمة الخلايا
         for (int y = 0; y < height; y++) {
-            ArrayList<Cell> row = new ArrayList<>();
             for (int x = 0; x < width; x++) {
-                Cell cell = new Cell(x, y);
-                row.add(cell);
-                designPanel.add(cell);
-
-                // إعداد المستمع لكل خلية
-                cell.addMouseListener(new MouseAdapter() {
-                    @Override
-                    public void mouseClicked(MouseEvent e) {
-                        Cell clickedCell = (Cell) e.getSource();
-                        String selection = (String) currentSelectionType.getSelectedItem();
-
-                        if ("فارغ".equals(selection)) {
-                            clickedCell.setType(CellType.EMPTY);
-                        } else if ("حاجز".equals(selection)) {
-                            clickedCell.setType(CellType.BARRIER);
-                        } else if ("قطعة ملونة".equals(selection)) {
-                            clickedCell.setType(CellType.COLORED);
-                            clickedCell.setColorIndex((Integer) colorSelector.getSelectedItem());
-                        }
-                        clickedCell.repaint();
-                    }
-                });
+                if (state.isBarrier(x, y)) {
+                    canvas.set(x, y, DesignCanvas.BARRIER);
+                } else {
+                    canvas.set(x, y, state.colorAt(x, y));
+                }
             }
-            cells.add(row);
         }
-
-        designPanel.revalidate();
-        designPanel.repaint();
-        pack();
     }
 
-    // تحديث قائمة الألوان المتاحة
-    private void updateColorSelector() {
-        colorSelector.removeAllItems();
-        for (int i = 0; i < numColors; i++) {
-            colorSelector.addItem(i);
-        }
+    // هل القيمة ضمن الحدين الأدنى والأعلى للمؤشر
+    private static boolean inRange(SpinnerNumberModel model, int value) {
+        return value >= (Integer) model.getMinimum() && value <= (Integer) model.getMaximum();
     }
 
     // بدء اللعبة
@@ -186,68 +199,59 @@ class BoardDesignFrame extends JFrame {
     // إنشاء حالة اللعبة بناءً على الخلايا الحالية
     private GameState createGameState() {
         GameState gameState = new GameState(width,height);
-        ArrayList<ColoredPiece> pieces = new ArrayList<>();
 
+        // الحواجز دفعة واحدة، ثم القطع الملونة
+        long[] barriers = new long[Board.wordsFor(width * height)];
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
-                Cell cell = cells.get(y).get(x);
-                if (cell.getType() == CellType.BARRIER) {
-                    gameState.getBarriers()[y][x] = 1;
-                } else if (cell.getType() == CellType.COLORED) {
-                    pieces.add(new ColoredPiece(cell.getColorIndex(), x, y));
+                if (canvas.get(x, y) == DesignCanvas.BARRIER) {
+                    int cell = y * width + x;
+                    barriers[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+        gameState.setBarriers(barriers);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = canvas.get(x, y);
+                if (value >= 0) {
+                    gameState.addPiece(value, x, y);
                 }
             }
         }
 
-        gameState.getPieces().addAll(pieces);
         gameState.saveInitialState();
         return gameState;
     }
 }
 
-enum CellType {
-    EMPTY, BARRIER, COLORED
-}
-
-class Cell extends JPanel {
-    private static final int CELL_SIZE = 60;
-    private static final Color[] COLORS = {
-            Color.RED, Color.BLUE, Color.GREEN, Color.YELLOW,
-            Color.ORANGE, Color.PINK, Color.CYAN, Color.MAGENTA
-    };
-
-    private CellType type = CellType.EMPTY;
-    private int colorIndex = 0;
-
-    public Cell(int x, int y) {
-        setPreferredSize(new Dimension(CELL_SIZE, CELL_SIZE));
-        setBorder(BorderFactory.createLineBorder(Color.GRAY));
-    }
-
-    public void setType(CellType type) {
-        this.type = type;
-    }
-
-    public CellType getType() {
-        return type;
-    }
-
-    public void setColorIndex(int colorIndex) {
-        this.colorIndex = colorIndex;
-    }
-
-    public int getColorIndex() {
-        return colorIndex;
-    }
-
+// يعرض كل لون في قائمة الألوان مع مربع بلونه
+class ColorSwatchRenderer extends DefaultListCellRenderer {
     @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+    public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                  boolean isSelected, boolean cellHasFocus) {
+        super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+        if (value instanceof Integer color) {
+            setIcon(new Icon() {
+                @Override
+                public void paintIcon(Component c, Graphics g, int x, int y) {
+                    g.setColor(PieceColors.of(color));
+                    g.fillRect(x, y, 12, 12);
+                    g.setColor(Color.GRAY);
+                    g.drawRect(x, y, 12, 12);
+                }
 
-        switch (type) {
-            case EMPTY -> setBackground(Color.WHITE);
-            case BARRIER -> setBackground(Color.GRAY);
-            case COLORED -> setBackground(COLORS[colorIndex % COLORS.length]);
+                @Override
+                public int getIconWidth() {
+                    return 13;
+                }
+
+                @Override
+                public int getIconHeight() {
+                    return 13;
+                }
+            });
         }
+        return this;
     }
 }
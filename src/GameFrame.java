@@ -29,14 +29,16 @@ class GameFrame extends JFrame {
                     case KeyEvent.VK_UP:    dy = -1; break;
                     case KeyEvent.VK_DOWN:  dy = 1;  break;
                     case KeyEvent.VK_R:
+                        gamePanel.userMoved();
                         gameState.reset();
-                        gamePanel.repaint();
+                        gamePanel.refreshBoard();
                         return;
                 }
 
                 if (dx != 0 || dy != 0) {
+                    gamePanel.userMoved();
                     gameState.movePieces(dx, dy);
-                    gamePanel.repaint();
+                    gamePanel.refreshBoard();
 
                     if (gameState.isGameComplete()) {
                         JOptionPane.showMessageDialog(
@@ -1,45 +1,64 @@
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.BiFunction;
 
 class GamePanel extends JPanel {
-    private static final int CELL_SIZE = 60;
-    private static final Color[] COLORS = {
-            Color.RED, Color.BLUE, Color.GREEN, Color.YELLOW,
-            Color.ORANGE, Color.PINK, Color.CYAN, Color.MAGENTA
-    };
-
     private GameState gameState;
+    private final BoardView boardView;
+    private final SolutionCache cache = SolutionCache.shared();
     private JButton bfsSolveButton;
     private JButton dfsSolveButton;
     private JButton dfsRecursiveSolveButton;
+    private JButton aStarSolveButton;
+    private JButton idaStarSolveButton;
+    private JButton parallelBfsSolveButton;
+    private JButton portfolioSolveButton;
+    private JButton stopButton;
+    private SearchBudget runningBudget; // budget of the search in progress, for the Stop button
     private JPanel solutionPanel;
+    private JScrollPane solutionScrollPane;
+    private MoveListView moveList; // view of the solution shown, null while there is none
     private JPanel controlPanel;
-    private static final int MOVES_PER_ROW = 8;
+    private static final Duration PROGRESS_INTERVAL = Duration.ofMillis(200);
+    private static final int FRAME_MILLIS = 15;
+    private static final long SLIDE_NANOS = 150_000_000L;
+
+    // Solution playback
+    private SolutionTrack track;
+    private int trackPosition;
+    private long slideStart = -1; // when the slide being drawn began, -1 when none is
+    private final Timer playTimer = new Timer(FRAME_MILLIS, e -> playFrame());
+    private JButton rewindButton;
+    private JButton stepBackButton;
+    private JButton playButton;
+    private JButton stepForwardButton;
+    private JSlider scrubber;
+    private JLabel positionLabel;
+    private boolean updatingScrubber;
 
     public GamePanel(GameState gameState) {
         this.gameState = gameState;
         setLayout(new BorderLayout());
 
         // Create the game board panel
-        JPanel boardPanel = new JPanel() {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                drawGame((Graphics2D) g);
-            }
-        };
-        boardPanel.setPreferredSize(new Dimension(
-                CELL_SIZE * gameState.getBarriers()[0].length,
-                CELL_SIZE * gameState.getBarriers().length
-        ));
+        boardView = new BoardView(gameState);
 
         // Create control panel with solve button and solution display
         createControlPanel();
 
         // Add components to the main panel
-        add(boardPanel, BorderLayout.CENTER);
+        add(boardView, BorderLayout.CENTER);
         add(controlPanel, BorderLayout.EAST);
+        add(createPlaybackPanel(), BorderLayout.SOUTH);
+    }
+
+    /** Repaints the cells that changed after the game state was moved or reset. */
+    void refreshBoard() {
+        boardView.refresh();
     }
 
     private JLabel statsLabel; // New label to display search statistics
@@ -54,16 +73,33 @@ class GamePanel extends JPanel {
         bfsSolveButton = new JButton("BFS ");
         dfsSolveButton = new JButton("DFS ");
         dfsRecursiveSolveButton = new JButton("Recursive DFS ");
-
-        bfsSolveButton.addActionListener(e -> findBfsSolution());
-        dfsSolveButton.addActionListener(e -> findDfsSolution());
-        dfsRecursiveSolveButton.addActionListener(e -> findDfsRecursiveSolution());
+        aStarSolveButton = new JButton("A* ");
+        idaStarSolveButton = new JButton("IDA* ");
+        parallelBfsSolveButton = new JButton("Parallel BFS ");
+        portfolioSolveButton = new JButton("Portfolio ");
+        stopButton = new JButton("Stop");
+        stopButton.setEnabled(false);
+
+        bfsSolveButton.addActionListener(e -> findSolution("BFS", true, GameSolver::solveBFSWithStats));
+        dfsSolveButton.addActionListener(e -> findSolution("DFS", false, GameSolver::solveDFSWithStats));
+        dfsRecursiveSolveButton.addActionListener(e -> findSolution("R DFS", false, GameSolver::solveRecursiveDFSWithStats));
+        aStarSolveButton.addActionListener(e -> findSolution("A*", true,
+                (state, budget) -> GameSolver.solveAStarWithStats(state, budget, cache)));
+        idaStarSolveButton.addActionListener(e -> findSolution("IDA*", true,
+                (state, budget) -> GameSolver.solveIDAStarWithStats(state, budget, cache)));
+        parallelBfsSolveButton.addActionListener(e -> findSolution("P BFS", true,
+                (state, budget) -> ParallelBFS.solve(state, Runtime.getRuntime().availableProcessors(), budget).result()));
+        portfolioSolveButton.addActionListener(e -> runSolver("Portfolio", true,
+                (state, budget) -> PortfolioSolver.solve(state, true, budget)));
+        stopButton.addActionListener(e -> {
+            if (runningBudget != null) runningBudget.cancel();
+        });
 
         // Create solution panel
         solutionPanel = new JPanel();
-        solutionPanel.setBorder(BorderFactory.createTitledBorder("Solution Moves"));
-        JScrollPane scrollPane = new JScrollPane(solutionPanel);
-        scrollPane.setPreferredSize(new Dimension(280, 250)); // Reduced height to make room for stats
+        solutionScrollPane = new JScrollPane(solutionPanel);
+        solutionScrollPane.setBorder(BorderFactory.createTitledBorder("Solution Moves"));
+        solutionScrollPane.setPreferredSize(new Dimension(280, 250)); // Reduced height to make room for stats
 
         // Create stats label
         statsLabel = new JLabel("Search Statistics");
@@ -71,116 +107,250 @@ class GamePanel extends JPanel {
         statsLabel.setFont(new Font("Arial", Font.BOLD, 12));
 
         // Add components to control panel
-        JPanel buttonPanel = new JPanel();
+        JPanel buttonPanel = new JPanel(new GridLayout(0, 3, 5, 5));
         buttonPanel.add(bfsSolveButton);
         buttonPanel.add(dfsSolveButton);
         buttonPanel.add(dfsRecursiveSolveButton);
+        buttonPanel.add(aStarSolveButton);
+        buttonPanel.add(idaStarSolveButton);
+        buttonPanel.add(parallelBfsSolveButton);
+        buttonPanel.add(portfolioSolveButton);
+        buttonPanel.add(stopButton);
 
         controlPanel.add(buttonPanel, BorderLayout.NORTH);
-        controlPanel.add(scrollPane, BorderLayout.CENTER);
+        controlPanel.add(solutionScrollPane, BorderLayout.CENTER);
         controlPanel.add(statsLabel, BorderLayout.SOUTH);
     }
 
-    private void findBfsSolution() {
-        bfsSolveButton.setEnabled(false);
-        dfsSolveButton.setEnabled(false);
-        dfsRecursiveSolveButton.setEnabled(false);
+    /**
+     * Answers from the solution cache when it knows the current state; otherwise runs the solver
+     * and caches the outcome ({@code optimal} solvers only contribute their solutions). The search
+     * reports its progress to the stats label and stops when Stop is pressed, or before its
+     * structures outgrow half the heap.
+     */
+    private void findSolution(String algorithmName, boolean optimal,
+                              BiFunction<GameState, SearchBudget, GameSolver.SearchResult> solver) {
+        runSolver(algorithmName, optimal,
+                (state, budget) -> new PortfolioSolver.PortfolioResult(solver.apply(state, budget), null));
+    }
+
+    /** Same as {@link #findSolution}, for solvers that also name the strategy that won. */
+    private void runSolver(String algorithmName, boolean optimal,
+                           BiFunction<GameState, SearchBudget, PortfolioSolver.PortfolioResult> solver) {
+        setSolveButtonsEnabled(false);
+        loadTrack(null, null);
 
         clearSolutionPanel();
         addLoadingMessage();
         resetStatsLabel();
 
+        SearchBudget budget = SearchBudget.of(null, Runtime.getRuntime().maxMemory() / 2);
+        runningBudget = budget;
+        // Snapshot the board here, on the EDT, before the player can move it again.
+        GameState start = gameState.copy();
+
         // Run the solver in a background thread
-        SwingWorker<GameSolver.SearchResult, Void> worker = new SwingWorker<>() {
+        SwingWorker<GameSolver.SearchResult, SearchBudget.Progress> worker = new SwingWorker<>() {
+            private boolean fromCache;
+            private String winner;
+
             @Override
             protected GameSolver.SearchResult doInBackground() {
-                return GameSolver.solveBFSWithStats(gameState);
+                budget.withProgress(this::publish, PROGRESS_INTERVAL);
+                GameSolver.SearchResult cached = cache.lookup(start);
+                if (cached != null) {
+                    fromCache = true;
+                    return cached;
+                }
+                PortfolioSolver.PortfolioResult outcome = solver.apply(start, budget);
+                GameSolver.SearchResult result = outcome.result();
+                winner = outcome.winner();
+                cache.record(start, result, optimal);
+                try {
+                    cache.save();
+                } catch (IOException e) {
+                    System.err.println("Could not save solution cache: " + e);
+                }
+                return result;
+            }
+
+            @Override
+            protected void process(List<SearchBudget.Progress> chunks) {
+                showProgress(algorithmName, chunks.get(chunks.size() - 1));
             }
 
             @Override
             protected void done() {
+                runningBudget = null;
                 try {
                     GameSolver.SearchResult result = get();
                     displaySolution(result.solution());
-                    updateStatsLabel("BFS", result);
+                    loadTrack(start, result.solution());
+                    String label = fromCache ? algorithmName + " (cached)"
+                            : winner != null ? algorithmName + " (" + winner + ")" : algorithmName;
+                    updateStatsLabel(label, result);
                 } catch (Exception ex) {
                     showError("Error finding solution: " + ex.getMessage());
                 }
-                bfsSolveButton.setEnabled(true);
-                dfsSolveButton.setEnabled(true);
-                dfsRecursiveSolveButton.setEnabled(true);
+                setSolveButtonsEnabled(true);
             }
         };
 
         worker.execute();
     }
 
-    private void findDfsSolution() {
-        dfsSolveButton.setEnabled(false);
-        bfsSolveButton.setEnabled(false);
-        dfsRecursiveSolveButton.setEnabled(false);
-
-        clearSolutionPanel();
-        addLoadingMessage();
-        resetStatsLabel();
+    private JPanel createPlaybackPanel() {
+        rewindButton = new JButton("|<");
+        stepBackButton = new JButton("<");
+        playButton = new JButton("Play");
+        stepForwardButton = new JButton(">");
+        scrubber = new JSlider(0, 0, 0);
+        positionLabel = new JLabel("0 / 0");
+
+        rewindButton.addActionListener(e -> seekTo(0));
+        stepBackButton.addActionListener(e -> seekTo(Math.max(0, trackPosition - 1)));
+        playButton.addActionListener(e -> togglePlayback());
+        stepForwardButton.addActionListener(e -> seekTo(Math.min(track.size(), trackPosition + 1)));
+        scrubber.addChangeListener(e -> {
+            if (!updatingScrubber && track != null) seekTo(scrubber.getValue());
+        });
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
+        buttons.add(rewindButton);
+        buttons.add(stepBackButton);
+        buttons.add(playButton);
+        buttons.add(stepForwardButton);
+        buttons.add(positionLabel);
+
+        JPanel playbackPanel = new JPanel(new BorderLayout(5, 5));
+        playbackPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        playbackPanel.add(buttons, BorderLayout.WEST);
+        playbackPanel.add(scrubber, BorderLayout.CENTER);
+        setPlaybackEnabled(false);
+        return playbackPanel;
+    }
 
-        // Run the solver in a background thread
-        SwingWorker<GameSolver.SearchResult, Void> worker = new SwingWorker<>() {
-            @Override
-            protected GameSolver.SearchResult doInBackground() {
-                return GameSolver.solveDFSWithStats(gameState);
+    /**
+     * Makes {@code solution}, found from {@code start}, the one the playback controls step through,
+     * and puts the board back to {@code start}, at move 0. The player may have moved while the
+     * solver ran, and playback must replay the solution on the board it was found for. Pass a null
+     * solution to clear the controls.
+     */
+    private void loadTrack(GameState start, MoveSequence solution) {
+        stopPlayback();
+        track = solution == null || solution.isEmpty() ? null : new SolutionTrack(start, solution);
+        updatingScrubber = true;
+        scrubber.setMaximum(track == null ? 0 : track.size());
+        updatingScrubber = false;
+        setPlaybackEnabled(track != null);
+        if (track != null) {
+            track.seek(gameState, 0);
+            boardView.refresh();
+            showPosition(0);
+        } else {
+            trackPosition = 0;
+            positionLabel.setText("0 / 0");
+            if (moveList != null) {
+                moveList.setPosition(Integer.MAX_VALUE); // past the end: nothing highlighted
             }
+        }
+    }
 
-            @Override
-            protected void done() {
-                try {
-                    GameSolver.SearchResult result = get();
-                    displaySolution(result.solution());
-                    updateStatsLabel("DFS", result);
-                } catch (Exception ex) {
-                    showError("Error finding solution: " + ex.getMessage());
-                }
-                dfsSolveButton.setEnabled(true);
-                bfsSolveButton.setEnabled(true);
-                dfsRecursiveSolveButton.setEnabled(true);
-            }
-        };
+    /**
+     * Call before the player moves or resets the board by hand. Playback stops, with any slide in
+     * flight dropped, and the track is unloaded, since its position no longer matches the board.
+     */
+    void userMoved() {
+        if (track != null) {
+            loadTrack(null, null);
+        }
+    }
 
-        worker.execute();
+    private void setPlaybackEnabled(boolean enabled) {
+        rewindButton.setEnabled(enabled);
+        stepBackButton.setEnabled(enabled);
+        playButton.setEnabled(enabled);
+        stepForwardButton.setEnabled(enabled);
+        scrubber.setEnabled(enabled);
     }
 
-    private void findDfsRecursiveSolution() {
-        dfsSolveButton.setEnabled(false);
-        bfsSolveButton.setEnabled(false);
-        dfsRecursiveSolveButton.setEnabled(false);
+    private void togglePlayback() {
+        if (playTimer.isRunning()) {
+            stopPlayback();
+            return;
+        }
+        if (trackPosition == track.size()) {
+            seekTo(0);
+        }
+        playButton.setText("Pause");
+        beginSlide();
+        playTimer.start();
+    }
 
-        clearSolutionPanel();
-        addLoadingMessage();
-        resetStatsLabel();
+    private void beginSlide() {
+        boardView.beginSlide(track.moveAt(trackPosition));
+        slideStart = System.nanoTime();
+    }
 
-        // Run the solver in a background thread
-        SwingWorker<GameSolver.SearchResult, Void> worker = new SwingWorker<>() {
-            @Override
-            protected GameSolver.SearchResult doInBackground() {
-                return GameSolver.solveRecursiveDFSWithStats(gameState);
-            }
+    /** Timer tick: advances the slide in flight, or applies it and starts the next one. */
+    private void playFrame() {
+        float progress = (System.nanoTime() - slideStart) / (float) SLIDE_NANOS;
+        if (progress < 1) {
+            boardView.setSlideProgress(progress);
+            return;
+        }
+        boardView.endSlide();
+        slideStart = -1;
+        gameState.move(track.moveAt(trackPosition));
+        boardView.refresh();
+        showPosition(trackPosition + 1);
+        if (trackPosition < track.size()) {
+            beginSlide();
+        } else {
+            stopPlayback();
+        }
+    }
 
-            @Override
-            protected void done() {
-                try {
-                    GameSolver.SearchResult result = get();
-                    displaySolution(result.solution());
-                    updateStatsLabel("R DFS", result);
-                } catch (Exception ex) {
-                    showError("Error finding solution: " + ex.getMessage());
-                }
-                dfsSolveButton.setEnabled(true);
-                bfsSolveButton.setEnabled(true);
-                dfsRecursiveSolveButton.setEnabled(true);
-            }
-        };
+    private void stopPlayback() {
+        playTimer.stop();
+        if (slideStart >= 0) {
+            boardView.endSlide();
+            slideStart = -1;
+        }
+        playButton.setText("Play");
+    }
 
-        worker.execute();
+    /** Shows the state after the first {@code index} moves, from the nearest checkpoint. */
+    private void seekTo(int index) {
+        if (track == null) {
+            return; // the move list stays clickable after the track is dropped
+        }
+        stopPlayback();
+        track.seek(gameState, index);
+        boardView.refresh();
+        showPosition(index);
+    }
+
+    private void showPosition(int index) {
+        trackPosition = index;
+        updatingScrubber = true;
+        scrubber.setValue(index);
+        updatingScrubber = false;
+        positionLabel.setText(index + " / " + track.size());
+        if (moveList != null) {
+            moveList.setPosition(index);
+        }
+    }
+
+    private void setSolveButtonsEnabled(boolean enabled) {
+        bfsSolveButton.setEnabled(enabled);
+        dfsSolveButton.setEnabled(enabled);
+        dfsRecursiveSolveButton.setEnabled(enabled);
+        aStarSolveButton.setEnabled(enabled);
+        idaStarSolveButton.setEnabled(enabled);
+        parallelBfsSolveButton.setEnabled(enabled);
+        portfolioSolveButton.setEnabled(enabled);
+        stopButton.setEnabled(!enabled);
     }
 
     private void resetStatsLabel() {
@@ -188,25 +358,57 @@ class GamePanel extends JPanel {
         statsLabel.setForeground(Color.BLACK);
     }
 
+    private void showProgress(String algorithmName, SearchBudget.Progress progress) {
+        statsLabel.setText(String.format(Locale.ROOT,
+                "<html>%s: searching...<br>" +
+                        "Depth: %d<br>" +
+                        "Frontier: %d<br>" +
+                        "Visited Nodes: %d<br>" +
+                        "Speed: %.0f nodes/s<br>" +
+                        "Elapsed: %.1f s</html>",
+                algorithmName, progress.depth(), progress.frontier(), progress.visited(),
+                progress.nodesPerSecond(), progress.elapsedMillis() / 1000.0));
+    }
+
     private void updateStatsLabel(String algorithmName, GameSolver.SearchResult result) {
-        if (result.solution() == null) {
-            statsLabel.setText("No solution found");
+        if (result.status() == GameSolver.SearchStatus.LIMIT_REACHED) {
+            statsLabel.setText(String.format("<html>%s stopped after %d ms<br>Visited Nodes: %d</html>",
+                    algorithmName, result.executionTimeMillis(), result.visitedNodes()));
+            statsLabel.setForeground(Color.RED);
+        } else if (result.solution() == null) {
+            statsLabel.setText(result.deadlock() != null
+                    ? "<html>No solution:<br>" + result.deadlock().description + "</html>"
+                    : "No solution found");
             statsLabel.setForeground(Color.RED);
         } else {
             String statsText = String.format(
                     "<html>%s:<br>" +
                             "Visited Nodes: %d<br>" +
+                            "Expanded / Generated: %d / %d<br>" +
                             "Solution Nodes: %d<br>" +
-                            "Search Time: %d ms</html>",
-                    algorithmName, result.visitedNodes(), result.solution().size(), result.executionTimeMillis()
+                            "Search Time: %d ms<br>" +
+                            "Memory: %.1f bytes/state%s</html>",
+                    algorithmName, result.visitedNodes(), result.expandedNodes(), result.generatedNodes(),
+                    result.solution().size(), result.executionTimeMillis(),
+                    result.bytesPerState(), metricsText(result.metrics())
             );
             statsLabel.setText(statsText);
             statsLabel.setForeground(Color.BLUE);
         }
     }
 
+    private static String metricsText(SearchMetrics metrics) {
+        if (metrics == null) {
+            return "";
+        }
+        return String.format(Locale.ROOT, "<br>Speed: %.0f nodes/s<br>Frontier Peak: %d<br>Duplicates: %.0f%%",
+                metrics.expansionsPerSecond(), metrics.frontierPeak(), 100 * metrics.duplicateRatio());
+    }
+
     private void clearSolutionPanel() {
+        moveList = null;
         solutionPanel.removeAll();
+        solutionScrollPane.setViewportView(solutionPanel);
         solutionPanel.revalidate();
         solutionPanel.repaint();
     }
@@ -218,7 +420,8 @@ class GamePanel extends JPanel {
         solutionPanel.add(loadingLabel, BorderLayout.CENTER);
     }
 
-    private void displaySolution(List<Character> solution) {
+    /** Shows the moves in a {@link MoveListView}, which paints only the rows in view. */
+    private void displaySolution(MoveSequence solution) {
         clearSolutionPanel();
 
         if (solution == null || solution.isEmpty()) {
@@ -226,57 +429,8 @@ class GamePanel extends JPanel {
             return;
         }
 
-        // Calculate grid layout dimensions
-        int totalMoves = solution.size();
-        int rows = (totalMoves + MOVES_PER_ROW - 1) / MOVES_PER_ROW;
-        solutionPanel.setLayout(new GridLayout(rows, MOVES_PER_ROW, 5, 5));
-
-        // Create move cells
-        for (int i = 0; i < solution.size(); i++) {
-            char move = solution.get(i);
-            JPanel moveCell = createMoveCell(i + 1, move);
-            solutionPanel.add(moveCell);
-        }
-
-        // Fill remaining grid cells if needed
-        int remaining = (rows * MOVES_PER_ROW) - totalMoves;
-        for (int i = 0; i < remaining; i++) {
-            solutionPanel.add(new JPanel());
-        }
-
-        solutionPanel.revalidate();
-        solutionPanel.repaint();
-    }
-
-    private JPanel createMoveCell(int moveNumber, char move) {
-        JPanel cell = new JPanel();
-        cell.setLayout(new BorderLayout());
-        cell.setBorder(BorderFactory.createLineBorder(Color.GRAY));
-        cell.setBackground(Color.WHITE);
-
-        // Convert move character to arrow
-        String arrow = switch (move) {
-            case 'U' -> "↑";
-            case 'D' -> "↓";
-            case 'L' -> "←";
-            case 'R' -> "→";
-            default -> String.valueOf(move);
-        };
-
-        // Create labels for move number and arrow
-        JLabel numberLabel = new JLabel(String.valueOf(moveNumber));
-        numberLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        numberLabel.setFont(new Font("Arial", Font.PLAIN, 10));
-
-        JLabel arrowLabel = new JLabel(arrow);
-        arrowLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        arrowLabel.setFont(new Font("Arial", Font.BOLD, 16));
-
-        // Add labels to cell
-        cell.add(numberLabel, BorderLayout.NORTH);
-        cell.add(arrowLabel, BorderLayout.CENTER);
-
-        return cell;
+        moveList = new MoveListView(solution, this::seekTo);
+        solutionScrollPane.setViewportView(moveList);
     }
 
     private void showError(String message) {
@@ -287,41 +441,4 @@ class GamePanel extends JPanel {
         errorLabel.setFont(new Font("Arial", Font.BOLD, 14));
         solutionPanel.add(errorLabel, BorderLayout.CENTER);
     }
-
-    private void drawGame(Graphics2D g2d) {
-        // Draw white background
-        g2d.setColor(Color.WHITE);
-        g2d.fillRect(0, 0, getWidth(), getHeight());
-
-        // Draw barriers
-        g2d.setColor(Color.GRAY);
-        int[][] barriers = gameState.getBarriers();
-        for (int y = 0; y < barriers.length; y++) {
-            for (int x = 0; x < barriers[y].length; x++) {
-                if (barriers[y][x] == 1) {
-                    g2d.fillRect(x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
-                }
-            }
-        }
-
-        // Draw grid
-        g2d.setColor(Color.LIGHT_GRAY);
-        for (int i = 0; i <= getWidth(); i += CELL_SIZE) {
-            g2d.drawLine(i, 0, i, getHeight());
-        }
-        for (int i = 0; i <= getHeight(); i += CELL_SIZE) {
-            g2d.drawLine(0, i, getWidth(), i);
-        }
-
-        // Draw pieces
-        for (ColoredPiece piece : gameState.getPieces()) {
-            g2d.setColor(COLORS[piece.getColor() % COLORS.length]);
-            g2d.fillRect(
-                    piece.getX() * CELL_SIZE + 5,
-                    piece.getY() * CELL_SIZE + 5,
-                    CELL_SIZE - 10,
-                    CELL_SIZE - 10
-            );
-        }
-    }
-}
\ No newline at end of file
+}
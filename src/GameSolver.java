@@ -1,209 +1,637 @@
 import java.util.*;
 
-
 class GameSolver {
-    private static final int[] DX = {0, 0, -1, 1}; //  Up, Down, Left, Right
-    private static final int[] DY = {-1, 1, 0, 0};
-    private static final char[] MOVE_CHARS = {'U', 'D', 'L', 'R'};
 
     static class SearchStats {
+        final String algorithm;
+        final SearchEvent event = new SearchEvent();
+        long startAllocated = SearchMetrics.threadAllocatedBytes();
         int visitedNodes = 0;
         int solutionNodes = 0;
+        long expandedNodes = 0;
+        long generatedNodes = 0;
+        long duplicateHits = 0;   // generated children that were already visited
+        long frontierPeak = 0;
+        long[] expandedByDepth = new long[32];
+        long[] childrenByDepth = new long[32]; // new children, by the depth of their parent
+        final long[] prunedByRule = new long[DeadlockDetector.Rule.values().length];
+        boolean aborted = false;
+
+        SearchStats(String algorithm) {
+            this.algorithm = algorithm;
+            event.begin();
+        }
 
         void reset() {
+            aborted = false;
             visitedNodes = 0;
             solutionNodes = 0;
+            expandedNodes = 0;
+            generatedNodes = 0;
+            duplicateHits = 0;
+            frontierPeak = 0;
+            Arrays.fill(expandedByDepth, 0);
+            Arrays.fill(childrenByDepth, 0);
+            Arrays.fill(prunedByRule, 0);
+            startAllocated = SearchMetrics.threadAllocatedBytes();
         }
-    }
 
-    static class GameNode {
-        GameState state;
-        List<Character> moves;
+        /** Counts the expansion of a node at {@code depth} while {@code frontier} nodes wait. */
+        void expand(int depth, long frontier) {
+            expandedNodes++;
+            if (frontier > frontierPeak) frontierPeak = frontier;
+            if (depth >= expandedByDepth.length) {
+                int length = Math.max(depth + 1, expandedByDepth.length * 2);
+                expandedByDepth = Arrays.copyOf(expandedByDepth, length);
+                childrenByDepth = Arrays.copyOf(childrenByDepth, length);
+            }
+            expandedByDepth[depth]++;
+        }
+
+        /** Counts a new child of an already expanded node at {@code parentDepth}. */
+        void child(int parentDepth) {
+            childrenByDepth[parentDepth]++;
+        }
 
-        GameNode(GameState state, List<Character> moves) {
-            this.state = state;
-            this.moves = moves;
+        /** Counts a state that {@code rule} proved dead. */
+        void pruned(DeadlockDetector.Rule rule) {
+            prunedByRule[rule.ordinal()]++;
+        }
+
+        SearchMetrics snapshot(long visitedBytes, long elapsedNanos) {
+            long allocated = SearchMetrics.threadAllocatedBytes();
+            long[] expanded = SearchMetrics.trim(expandedByDepth);
+            return new SearchMetrics(algorithm, elapsedNanos, expandedNodes, generatedNodes, duplicateHits,
+                    frontierPeak, visitedBytes, allocated < 0 || startAllocated < 0 ? -1 : allocated - startAllocated,
+                    expanded, Arrays.copyOf(childrenByDepth, expanded.length), prunedByRule.clone());
         }
     }
 
 
 
+    enum SearchStatus {
+        SOLVED, NO_SOLUTION, LIMIT_REACHED
+    }
+
     public record SearchResult(
-            List<Character> solution,
+            MoveSequence solution,
             int visitedNodes,
-            long executionTimeMillis
-    ) {}
+            long executionTimeMillis,
+            long visitedBytes,
+            long expandedNodes,
+            long generatedNodes,
+            SearchStatus status,
+            DeadlockDetector.Rule deadlock,
+            SearchMetrics metrics
+    ) {
+        SearchResult(MoveSequence solution, int visitedNodes, long executionTimeMillis, long visitedBytes,
+                     long expandedNodes, long generatedNodes, SearchStatus status) {
+            this(solution, visitedNodes, executionTimeMillis, visitedBytes, expandedNodes, generatedNodes, status,
+                    null, null);
+        }
+
+        /** Visited-set heap cost per stored state, for sizing -Xmx against expected state counts. */
+        double bytesPerState() {
+            return visitedNodes == 0 ? 0 : (double) visitedBytes / visitedNodes;
+        }
+    }
+
+    private static SearchResult result(MoveSequence solution, SearchStats stats, long startTime, long visitedBytes) {
+        long elapsedNanos = System.nanoTime() - startTime;
+        SearchStatus status = solution != null ? SearchStatus.SOLVED
+                : stats.aborted ? SearchStatus.LIMIT_REACHED : SearchStatus.NO_SOLUTION;
+        stats.solutionNodes = solution != null ? solution.size() : 0;
+        SearchMetrics metrics = stats.snapshot(visitedBytes, elapsedNanos);
+        stats.event.finish(metrics, status, stats.solutionNodes);
+        return new SearchResult(solution, stats.visitedNodes, elapsedNanos / 1_000_000, visitedBytes,
+                stats.expandedNodes, stats.generatedNodes, status, null, metrics);
+    }
+
+    /**
+     * NO_SOLUTION, without searching, when {@link DeadlockDetector} proves the start state dead;
+     * null otherwise. The metrics of {@code algorithm} count the one pruned state under its rule.
+     */
+    static SearchResult provedDead(String algorithm, GameState initialState, long startTime) {
+        DeadlockDetector.Rule rule = new DeadlockDetector(initialState.getBoard()).check(initialState);
+        if (rule == null) {
+            return null;
+        }
+        SearchStats stats = new SearchStats(algorithm);
+        stats.pruned(rule);
+        long elapsedNanos = System.nanoTime() - startTime;
+        SearchMetrics metrics = stats.snapshot(0, elapsedNanos);
+        stats.event.finish(metrics, SearchStatus.NO_SOLUTION, 0);
+        return new SearchResult(null, 0, elapsedNanos / 1_000_000, 0, 0, 0, SearchStatus.NO_SOLUTION, rule, metrics);
+    }
 
     public static SearchResult solveBFSWithStats(GameState initialState) {
+        return solveBFSWithStats(initialState, SearchBudget.unlimited());
+    }
+
+    public static SearchResult solveBFSWithStats(GameState initialState, SearchBudget budget) {
         // Record start time
         long startTime = System.nanoTime();
+        SearchResult dead = provedDead("bfs", initialState, startTime);
+        if (dead != null) {
+            return dead;
+        }
 
-        SearchStats stats = new SearchStats();
-        Queue<GameNode> queue = new LinkedList<>();
-        Set<String> visited = new HashSet<>();
-
-        GameNode initialNode = new GameNode(initialState.copy(), new ArrayList<>());
-        queue.offer(initialNode);
-        visited.add(getStateHash(initialState));
+        SearchStats stats = new SearchStats("bfs");
+        StateCodec codec = StateCodec.forState(initialState);
+        FrontierStore queue = new FrontierStore(codec);
+        BoardSymmetry symmetry = new BoardSymmetry(initialState);
+        StateKeySet visited = new StateKeySet(codec.keyLength());
+        SearchTree tree = new SearchTree();
+        long[] key = new long[codec.keyLength()];
+        GameState current = initialState.copy();
+        UndoLog undo = new UndoLog();
+
+        long rootHash = symmetry.canonicalKey(current, key, 0);
+        visited.add(key, 0, rootHash);
+        queue.add(current, tree.add(-1, 0), 0);
         stats.visitedNodes++;
 
         while (!queue.isEmpty()) {
-            GameNode current = queue.poll();
-
-            if (current.state.isGameComplete()) {
-                long endTime = System.nanoTime();
-                long executionTime = (endTime - startTime) / 1_000_000; 
-                System.out.println(executionTime);
+            int id = queue.pollFirst(current);
+            int depth = queue.polledDepth();
 
-                return new SearchResult(current.moves, stats.visitedNodes, executionTime);
+            if (current.isGameComplete()) {
+                return result(tree.pathTo(id), stats, startTime,
+                        visited.memoryBytes() + tree.memoryBytes() + queue.memoryBytes());
+            }
+            if (budget.shouldStop(visited.memoryBytes() + tree.memoryBytes() + queue.memoryBytes())) {
+                stats.aborted = true;
+                break;
+            }
+            if (budget.progressDue()) {
+                budget.report(depth, queue.size(), stats.visitedNodes, stats.expandedNodes);
             }
 
+            stats.expand(depth, queue.size());
             for (int i = 3; i >= 0; i--) {
-                GameState nextState = current.state.copy();
-                nextState.movePieces(DX[i], DY[i]);
+                current.make(i, undo);
+                stats.generatedNodes++;
 
-                String stateHash = getStateHash(nextState);
-                if (!visited.contains(stateHash)) {
-                    List<Character> newMoves = new ArrayList<>(current.moves);
-                    newMoves.add(MOVE_CHARS[i]);
-
-                    queue.offer(new GameNode(nextState, newMoves));
-                    visited.add(stateHash);
+                long hash = symmetry.canonicalKey(current, key, 0);
+                if (visited.add(key, 0, hash)) {
+                    queue.add(current, tree.add(id, i), depth + 1);
                     stats.visitedNodes++;
+                    stats.child(depth);
+                } else {
+                    stats.duplicateHits++;
                 }
+                current.unmake(undo);
             }
         }
 
-        long endTime = System.nanoTime();
-        long executionTime = (endTime - startTime) / 1_000_000;
-
-        return new SearchResult(null, stats.visitedNodes, executionTime);
+        return result(null, stats, startTime, visited.memoryBytes() + tree.memoryBytes() + queue.memoryBytes());
     }
 
     public static SearchResult solveDFSWithStats(GameState initialState) {
-        long startTime = System.nanoTime();
+        return solveDFSWithStats(initialState, SearchBudget.unlimited());
+    }
 
-        SearchStats stats = new SearchStats();
-        Stack<GameNode> stack = new Stack<>();
-        Set<String> visited = new HashSet<>();
+    public static SearchResult solveDFSWithStats(GameState initialState, SearchBudget budget) {
+        long startTime = System.nanoTime();
+        SearchResult dead = provedDead("dfs", initialState, startTime);
+        if (dead != null) {
+            return dead;
+        }
 
-        GameNode initialNode = new GameNode(initialState.copy(), new ArrayList<>());
-        stack.push(initialNode);
-        visited.add(getStateHash(initialState));
+        SearchStats stats = new SearchStats("dfs");
+        StateCodec codec = StateCodec.forState(initialState);
+        BoardSymmetry symmetry = new BoardSymmetry(initialState);
+        StateKeySet visited = new StateKeySet(codec.keyLength());
+        SearchTree tree = new SearchTree();
+        long[] key = new long[codec.keyLength()];
+
+        // The stack holds tree ids and depths only. One state is moved in place: each popped node's
+        // parent lies on the path to the node expanded last, so the state unmakes back to that
+        // parent and makes the node's move.
+        int[] stack = new int[64];
+        int[] depths = new int[64];
+        int top = 0;
+        GameState state = initialState.copy();
+        UndoLog undo = new UndoLog();
+        int stateDepth = 0;
+
+        long rootHash = symmetry.canonicalKey(state, key, 0);
+        visited.add(key, 0, rootHash);
+        stack[top] = tree.add(-1, 0);
+        depths[top++] = 0;
         stats.visitedNodes++;
 
-        while (!stack.isEmpty()) {
-            GameNode current = stack.pop();
-
-            if (current.state.isGameComplete()) {
-                long endTime = System.nanoTime();
-                long executionTime = (endTime - startTime) / 1_000_000;
+        while (top > 0) {
+            top--;
+            int id = stack[top];
+            int depth = depths[top];
+            if (depth > 0) {
+                for (; stateDepth >= depth; stateDepth--) {
+                    state.unmake(undo);
+                }
+                state.make(tree.move(id), undo);
+                stateDepth++;
+            }
 
-                return new SearchResult(current.moves, stats.visitedNodes, executionTime);
+            if (state.isGameComplete()) {
+                return result(tree.pathTo(id), stats, startTime, visited.memoryBytes() + tree.memoryBytes());
+            }
+            if (budget.shouldStop(visited.memoryBytes() + tree.memoryBytes())) {
+                stats.aborted = true;
+                break;
+            }
+            if (budget.progressDue()) {
+                budget.report(depth, top, stats.visitedNodes, stats.expandedNodes);
             }
 
+            stats.expand(depth, top);
             for (int i = 3; i >= 0; i--) {
-                GameState nextState = current.state.copy();
-                nextState.movePieces(DX[i], DY[i]);
-
-                String stateHash = getStateHash(nextState);
-                if (!visited.contains(stateHash)) {
-                    List<Character> newMoves = new ArrayList<>(current.moves);
-                    newMoves.add(MOVE_CHARS[i]);
-
-                    stack.push(new GameNode(nextState, newMoves));
-                    visited.add(stateHash);
+                state.make(i, undo);
+                stats.generatedNodes++;
+                long hash = symmetry.canonicalKey(state, key, 0);
+                state.unmake(undo);
+
+                if (visited.add(key, 0, hash)) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                        depths = Arrays.copyOf(depths, top * 2);
+                    }
+                    stack[top] = tree.add(id, i);
+                    depths[top++] = depth + 1;
                     stats.visitedNodes++;
+                    stats.child(depth);
+                } else {
+                    stats.duplicateHits++;
                 }
             }
         }
 
-        long endTime = System.nanoTime();
-        long executionTime = (endTime - startTime) / 1_000_000;
-
-        return new SearchResult(null, stats.visitedNodes, executionTime);
+        return result(null, stats, startTime, visited.memoryBytes() + tree.memoryBytes());
     }
 
     public static SearchResult solveRecursiveDFSWithStats(GameState initialState) {
+        return solveRecursiveDFSWithStats(initialState, SearchBudget.unlimited());
+    }
+
+    public static SearchResult solveRecursiveDFSWithStats(GameState initialState, SearchBudget budget) {
         long startTime = System.nanoTime();
+        SearchResult dead = provedDead("rdfs", initialState, startTime);
+        if (dead != null) {
+            return dead;
+        }
 
-        SearchStats stats = new SearchStats();
+        SearchStats stats = new SearchStats("rdfs");
         stats.reset();
 
-        List<Character> solution = recursiveDFSHelperWithStats(
-                initialState,
-                new ArrayList<>(),
-                new HashSet<>(),
-                stats
+        StateCodec codec = StateCodec.forState(initialState);
+        StateKeySet visited = new StateKeySet(codec.keyLength());
+        MoveSequence.Builder path = new MoveSequence.Builder();
+
+        boolean found = recursiveDFSHelperWithStats(
+                initialState.copy(),
+                path,
+                new BoardSymmetry(initialState),
+                visited,
+                new long[codec.keyLength()],
+                new UndoLog(),
+                stats,
+                budget
         );
 
-        long endTime = System.nanoTime();
-        long executionTime = (endTime - startTime) / 1_000_000;
-
-        return new SearchResult(solution, stats.visitedNodes, executionTime);
+        return result(found ? path.build() : null, stats, startTime, visited.memoryBytes());
     }
 
-    private static List<Character> recursiveDFSHelperWithStats(
+    private static boolean recursiveDFSHelperWithStats(
             GameState currentState,
-            List<Character> currentMoves,
-            Set<String> visited,
-            SearchStats stats
+            MoveSequence.Builder path,
+            BoardSymmetry symmetry,
+            StateKeySet visited,
+            long[] key,
+            UndoLog undo,
+            SearchStats stats,
+            SearchBudget budget
     ) {
         if (currentState.isGameComplete()) {
-            return currentMoves;
+            return true;
+        }
+        if (stats.aborted || budget.shouldStop(visited.memoryBytes())) {
+            stats.aborted = true;
+            return false;
+        }
+        if (budget.progressDue()) {
+            budget.report(path.size(), path.size(), stats.visitedNodes, stats.expandedNodes);
+        }
+
+        long hash = symmetry.canonicalKey(currentState, key, 0);
+        if (!visited.add(key, 0, hash)) {
+            stats.duplicateHits++;
+            return false;
         }
+        stats.visitedNodes++;
+        if (path.size() > 0) stats.child(path.size() - 1);
+        stats.expand(path.size(), path.size());
 
-        String stateHash = getStateHash(currentState);
+        for (int i = 0; i < 4; i++) {
+            currentState.make(i, undo);
+            stats.generatedNodes++;
 
-        if (visited.contains(stateHash)) {
-            return null;
+            path.add(i);
+            if (recursiveDFSHelperWithStats(currentState, path, symmetry, visited, key, undo, stats, budget)) {
+                return true;
+            }
+            path.removeLast();
+            currentState.unmake(undo);
+            if (stats.aborted) {
+                return false;
+            }
         }
 
-        visited.add(stateHash);
+        return false;
+    }
+
+    /**
+     * A* over packed states: nodes are visited-set ids, g/h live in parallel int arrays and open
+     * nodes sit in an indexed heap ordered by f, preferring deeper nodes on ties so that goals
+     * on the optimal frontier are reached without expanding the whole f-layer.
+     *
+     * <p>With a {@link SolutionCache}, a generated state whose answer is cached acts as a goal that
+     * costs its cached distance more: the cheapest one found bounds the solution, and the search
+     * stops as soon as no open node can beat that bound. Cached dead ends are never opened.
+     */
+    public static SearchResult solveAStarWithStats(GameState initialState) {
+        return solveAStarWithStats(initialState, SearchBudget.unlimited());
+    }
+
+    public static SearchResult solveAStarWithStats(GameState initialState, SearchBudget budget) {
+        return solveAStarWithStats(initialState, budget, null);
+    }
+
+    public static SearchResult solveAStarWithStats(GameState initialState, SearchBudget budget, SolutionCache cache) {
+        long startTime = System.nanoTime();
+        SearchResult dead = provedDead("astar", initialState, startTime);
+        if (dead != null) {
+            return dead;
+        }
+
+        SearchStats stats = new SearchStats("astar");
+        StateCodec codec = StateCodec.forState(initialState);
+        BoardSymmetry symmetry = new BoardSymmetry(initialState);
+        StateKeySet visited = new StateKeySet(codec.keyLength());
+        SearchTree tree = new SearchTree();
+        IndexedMinHeap open = new IndexedMinHeap();
+        MergeHeuristic heuristic = new MergeHeuristic(initialState.getBoard());
+        long[] key = new long[codec.keyLength()];
+        int[] g = new int[1024];
+        int[] h = new int[1024];
+
+        GameState current = initialState.copy();
+        UndoLog undo = new UndoLog();
+        long rootHash = symmetry.canonicalKey(current, key, 0);
+        visited.add(key, 0, rootHash);
+        tree.add(-1, 0);
         stats.visitedNodes++;
+        g[0] = 0;
+        h[0] = heuristic.estimate(current);
+        SolutionCache.Answer cached = cache != null ? cache.get(current, symmetry, rootHash) : null;
+        if (cached != null) {
+            return result(cached.solution(), stats, startTime, visited.memoryBytes() + tree.memoryBytes());
+        }
+        if (h[0] != MergeHeuristic.INFINITE) {
+            open.offer(0, priority(0, h[0]));
+        }
+        int bestCost = MergeHeuristic.INFINITE; // cheapest solution through a cached state so far
+        int bestNode = -1;
+        GameState bestState = null;
+        MoveSequence bestSuffix = null;
+
+        while (!open.isEmpty() || bestNode >= 0) {
+            if (bestNode >= 0 && (open.isEmpty() || bestCost <= open.peekPriority() >>> 32)) {
+                current.copyFrom(initialState);
+                MoveSequence path = replayPath(current, bestNode, tree, visited, symmetry);
+                MoveSequence suffix = symmetry.mapMoves(bestState, current, bestSuffix);
+                MoveSequence solution = new MoveSequence.Builder().addAll(path).addAll(suffix).build();
+                return result(solution, stats, startTime,
+                        visited.memoryBytes() + tree.memoryBytes() + open.memoryBytes() + 8L * g.length);
+            }
+            int id = open.poll();
+            visited.getKey(id, key, 0);
+            codec.decode(key, 0, current);
+
+            if (current.isGameComplete()) {
+                current.copyFrom(initialState);
+                return result(replayPath(current, id, tree, visited, symmetry), stats, startTime,
+                        visited.memoryBytes() + tree.memoryBytes() + open.memoryBytes() + 8L * g.length);
+            }
+            if (budget.shouldStop(visited.memoryBytes() + tree.memoryBytes() + open.memoryBytes() + 8L * g.length)) {
+                stats.aborted = true;
+                break;
+            }
+            if (budget.progressDue()) {
+                budget.report(g[id], open.size(), stats.visitedNodes, stats.expandedNodes);
+            }
 
-        for (int i = 0; i < 4; i++) {
-            GameState nextState = currentState.copy();
-            nextState.movePieces(DX[i], DY[i]);
+            stats.expand(g[id], open.size());
+            for (int i = 0; i < 4; i++) {
+                current.make(i, undo);
+                stats.generatedNodes++;
+
+                long hash = symmetry.canonicalKey(current, key, 0);
+                int found = visited.addOrGet(key, 0, hash);
+                int childG = g[id] + 1;
+                int child;
+                if (found < 0) {
+                    child = -found - 1;
+                    tree.add(id, i);
+                    stats.visitedNodes++;
+                    stats.child(g[id]);
+                    if (child == g.length) {
+                        g = Arrays.copyOf(g, g.length * 2);
+                        h = Arrays.copyOf(h, h.length * 2);
+                    }
+                    h[child] = heuristic.estimate(current);
+                } else {
+                    child = found;
+                    stats.duplicateHits++;
+                    if (childG >= g[child]) {
+                        current.unmake(undo);
+                        continue;
+                    }
+                    tree.relink(child, id, i);
+                }
+                g[child] = childG;
+                if (cache != null && h[child] != MergeHeuristic.INFINITE) {
+                    cached = cache.get(current, symmetry, hash);
+                    if (cached != null) {
+                        int distance = cached.distance();
+                        if (distance == MergeHeuristic.INFINITE) {
+                            h[child] = MergeHeuristic.INFINITE;
+                        } else if (childG + distance < bestCost) {
+                            bestCost = childG + distance;
+                            bestNode = child;
+                            bestState = current.copy();
+                            bestSuffix = cached.solution();
+                        }
+                    }
+                }
+                if (h[child] != MergeHeuristic.INFINITE) {
+                    open.offer(child, priority(childG, h[child]));
+                }
+                current.unmake(undo);
+            }
+        }
 
-            List<Character> newMoves = new ArrayList<>(currentMoves);
-            newMoves.add(MOVE_CHARS[i]);
+        return result(null, stats, startTime,
+                visited.memoryBytes() + tree.memoryBytes() + open.memoryBytes() + 8L * g.length);
+    }
 
-            List<Character> solution = recursiveDFSHelperWithStats(nextState, newMoves, visited, stats);
+    /**
+     * Moves from {@code state} to node {@code id} of a tree over canonical keys. The stored moves
+     * apply to the decoded (canonical) parents, so each step is replayed on the actual state with
+     * the direction that reaches the child's key. Leaves {@code state} at the node.
+     */
+    static MoveSequence replayPath(GameState state, int id, SearchTree tree, StateKeySet visited,
+                                   BoardSymmetry symmetry) {
+        long[][] targets = new long[tree.depth(id)][];
+        for (int i = targets.length - 1, node = id; i >= 0; i--, node = tree.parent(node)) {
+            targets[i] = new long[visited.keyLength()];
+            visited.getKey(node, targets[i], 0);
+        }
+        return replayPath(state, targets, symmetry);
+    }
 
-            if (solution != null) {
-                return solution;
+    /** Like the tree version, for a path given as the canonical keys of every state after {@code state}. */
+    static MoveSequence replayPath(GameState state, long[][] targets, BoardSymmetry symmetry) {
+        long[] key = new long[targets.length == 0 ? 0 : targets[0].length];
+        UndoLog undo = new UndoLog();
+        MoveSequence.Builder path = new MoveSequence.Builder();
+        for (long[] target : targets) {
+            for (int dir = 0; dir < 4; dir++) {
+                state.make(dir, undo);
+                symmetry.canonicalKey(state, key, 0);
+                if (Arrays.equals(key, target)) {
+                    path.add(dir);
+                    break;
+                }
+                state.unmake(undo);
             }
         }
+        return path.build();
+    }
+
+    /** Heap order: smaller f first, then larger g. */
+    private static long priority(int g, int h) {
+        return ((long) (g + h) << 32) | (0xFFFFFFFFL - g);
+    }
 
-        return null;
+    private static final long IDA_TABLE_BYTES = 16L << 20;
+    private static final int FOUND = -1;
+
+    /**
+     * Iterative-deepening A*: repeated depth-first passes bounded by f = g + h, each raising the
+     * bound to the smallest f that exceeded it. Memory is the current path plus a fixed-size
+     * transposition table, yet solutions are optimal because the heuristic is admissible.
+     * Distances from a {@link SolutionCache} are used as exact heuristic values, and a cached
+     * state within the bound ends the search with the cached moves appended to the path.
+     */
+    public static SearchResult solveIDAStarWithStats(GameState initialState) {
+        return solveIDAStarWithStats(initialState, SearchBudget.unlimited());
     }
 
-    private static String getStateHash(GameState state) {
-        StringBuilder hash = new StringBuilder();
-        List<ColoredPiece> pieces = state.getPieces();
+    public static SearchResult solveIDAStarWithStats(GameState initialState, SearchBudget budget) {
+        return solveIDAStarWithStats(initialState, budget, null);
+    }
 
-        pieces.sort((p1, p2) -> {
-            if (p1.getColor() != p2.getColor()) {
-                return p1.getColor() - p2.getColor();
+    public static SearchResult solveIDAStarWithStats(GameState initialState, SearchBudget budget, SolutionCache cache) {
+        long startTime = System.nanoTime();
+        SearchResult dead = provedDead("idastar", initialState, startTime);
+        if (dead != null) {
+            return dead;
+        }
+
+        SearchStats stats = new SearchStats("idastar");
+        StateCodec codec = StateCodec.forState(initialState);
+        BoardSymmetry symmetry = new BoardSymmetry(initialState);
+        TranspositionTable table = new TranspositionTable(codec.keyLength(), Math.min(IDA_TABLE_BYTES, budget.maxBytes() / 2));
+        MergeHeuristic heuristic = new MergeHeuristic(initialState.getBoard());
+        MoveSequence.Builder path = new MoveSequence.Builder();
+        long[] key = new long[codec.keyLength()];
+        GameState state = initialState.copy();
+        UndoLog undo = new UndoLog();
+
+        int bound = heuristic.estimate(initialState);
+        for (int iteration = 1; bound != MergeHeuristic.INFINITE; iteration++) {
+            int next = idaSearch(state, 0, bound, iteration, path, undo, symmetry, table, heuristic, cache, key, stats,
+                    budget);
+            if (next == FOUND) {
+                return result(path.build(), stats, startTime, table.memoryBytes());
             }
-            if (p1.getX() != p2.getX()) {
-                return p1.getX() - p2.getX();
+            if (stats.aborted) {
+                break;
             }
-            return p1.getY() - p2.getY();
-        });
+            bound = next;
+        }
+        return result(null, stats, startTime, table.memoryBytes());
+    }
+
+    /** Returns FOUND, or the smallest f above {@code bound} seen below this node. */
+    private static int idaSearch(
+            GameState state,
+            int g,
+            int bound,
+            int iteration,
+            MoveSequence.Builder path,
+            UndoLog undo,
+            BoardSymmetry symmetry,
+            TranspositionTable table,
+            MergeHeuristic heuristic,
+            SolutionCache cache,
+            long[] key,
+            SearchStats stats,
+            SearchBudget budget
+    ) {
+        if (stats.aborted || budget.shouldStop(table.memoryBytes())) {
+            stats.aborted = true;
+            return MergeHeuristic.INFINITE;
+        }
+        if (budget.progressDue()) {
+            budget.report(g, path.size(), stats.visitedNodes, stats.expandedNodes);
+        }
+        int h = heuristic.estimate(state);
+        if (h == MergeHeuristic.INFINITE) return MergeHeuristic.INFINITE;
+        int f = g + h;
+        if (f > bound) return f;
+        if (state.isGameComplete()) return FOUND;
+        long hash = symmetry.canonicalKey(state, key, 0);
+        SolutionCache.Answer cached = cache != null ? cache.get(state, symmetry, hash) : null;
+        if (cached != null) {
+            if (cached.solution() == null) return MergeHeuristic.INFINITE;
+            if (g + cached.distance() > bound) return g + cached.distance();
+            path.addAll(cached.solution());
+            return FOUND;
+        }
 
-        for (ColoredPiece piece : pieces) {
-            hash.append(piece.getColor())
-                    .append(',')
-                    .append(piece.getX())
-                    .append(',')
-                    .append(piece.getY())
-                    .append(';');
+        if (table.seenNoDeeper(key, 0, hash, g, iteration)) {
+            stats.duplicateHits++;
+            return MergeHeuristic.INFINITE;
         }
+        stats.visitedNodes++;
+        if (g > 0) stats.child(g - 1);
+        stats.expand(g, path.size());
 
-        return hash.toString();
+        int min = MergeHeuristic.INFINITE;
+        for (int i = 0; i < 4; i++) {
+            state.make(i, undo);
+            stats.generatedNodes++;
+
+            path.add(i);
+            int t = idaSearch(state, g + 1, bound, iteration, path, undo, symmetry, table, heuristic, cache, key, stats,
+                    budget);
+            if (t == FOUND) return FOUND;
+            path.removeLast();
+            state.unmake(undo);
+            if (stats.aborted) return MergeHeuristic.INFINITE;
+            if (t < min) min = t;
+        }
+        return min;
     }
-
-    // Existing getStateHash method remains the same...
-}
\ No newline at end of file
+}
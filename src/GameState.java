@@ -1,27 +1,195 @@
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Pieces are stored as one bitboard per color ({@code board.getWords()} longs each, laid out
+ * back to back in {@code colors}). Barriers live in the shared, immutable {@link Board}.
+ *
+ * <p>Every state also carries a 64-bit Zobrist hash: the XOR of {@link #zobristKey} over its
+ * (color, cell) pieces, updated from the changed bits whenever pieces are added, cleared, moved
+ * or merged, so it never has to be recomputed from scratch.
+ *
+ * <p>Depth-first searches move one state in place with {@link #make} and {@link #unmake}, which
+ * record and restore only the words a move changed. Buffers for computing moves are kept per
+ * state and not copied, so a state that is moved over and over allocates nothing.
+ */
 class GameState {
-    private List<ColoredPiece> pieces;
-    private int[][] barriers;
-    private int width, height;
+    private Board board;
+    private int numColors;
+    private long[] colors;
+    private long hash;
     private GameState initialState;
+    private MoveBuffers buffers; // created on first move
+
+    /** Working arrays for {@link #slide}, sized for one board; grid is all zero between moves. */
+    private static final class MoveBuffers {
+        final Board board;
+        final short[] grid;    // color + 1 of the piece on each cell
+        final long[] occupied;
+        final int[] runEnd;    // last cell of the run being filled in each line
+        final int[] landing;   // where that run's next piece lands
+        final int[] last;      // color + 1 that landed there last
+        long[] moved;
+
+        MoveBuffers(Board board, int colorWords) {
+            this.board = board;
+            grid = new short[board.getCells()];
+            occupied = new long[board.getWords()];
+            int lines = Math.max(board.getWidth(), board.getHeight());
+            runEnd = new int[lines];
+            landing = new int[lines];
+            last = new int[lines];
+            moved = new long[colorWords];
+        }
+    }
 
     public GameState(int width, int height) {
-        this.width = width;
-        this.height = height;
-        this.pieces = new ArrayList<>();
-        this.barriers = new int[height][width];
+        this(new Board(width, height), 0, new long[0], 0L);
+    }
+
+    private GameState(Board board, int numColors, long[] colors, long hash) {
+        this.board = board;
+        this.numColors = numColors;
+        this.colors = colors;
+        this.hash = hash;
+    }
+
+    /**
+     * Zobrist key of a piece of {@code color} on {@code cell}. The keys come from a fixed mixing
+     * function (the SplitMix64 finalizer) instead of a random table, so boards of any size and any
+     * number of colors are covered and hashes are the same in every run.
+     */
+    static long zobristKey(int color, int cell) {
+        long z = (((long) color << 32 | cell) + 1) * 0x9E3779B97F4A7C15L; // + 1: no piece may hash to 0
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** XOR of the Zobrist keys of every set bit in {@code bits}, word {@code i} of {@code color}. */
+    private static long zobristBits(int color, int i, long bits) {
+        long z = 0;
+        while (bits != 0) {
+            z ^= zobristKey(color, (i << 6) + Long.numberOfTrailingZeros(bits));
+            bits &= bits - 1;
+        }
+        return z;
+    }
+
+    long zobristHash() {
+        return hash;
+    }
+
+    public int getWidth() {
+        return board.getWidth();
+    }
+
+    public int getHeight() {
+        return board.getHeight();
+    }
+
+    public int getNumColors() {
+        return numColors;
+    }
+
+    Board getBoard() {
+        return board;
+    }
+
+    public boolean isBarrier(int x, int y) {
+        board.checkBounds(x, y);
+        return board.isBarrier(x, y);
+    }
+
+    public void setBarrier(int x, int y, boolean barrier) {
+        board = board.withBarrier(x, y, barrier);
+        if (barrier) {
+            clearCell(y * board.getWidth() + x);
+        }
+    }
+
+    /**
+     * Replaces all barriers with the set bits of {@code mask} (bit y * width + x, as in
+     * {@link Board}) and removes the pieces on them. Use it when loading a whole layout: every
+     * {@link #setBarrier} call builds a new board.
+     */
+    void setBarriers(long[] mask) {
+        board = board.withBarriers(mask);
+        int words = board.getWords();
+        for (int c = 0; c < numColors; c++) {
+            for (int i = 0; i < words; i++) {
+                long covered = colors[c * words + i] & board.barrierWord(i);
+                if (covered != 0) {
+                    hash ^= zobristBits(c, i, covered);
+                    colors[c * words + i] &= ~covered;
+                }
+            }
+        }
+    }
+
+    public void addPiece(int color, int x, int y) {
+        if (color < 0) {
+            throw new IllegalArgumentException("Negative color: " + color);
+        }
+        board.checkBounds(x, y);
+        if (board.isBarrier(x, y)) {
+            throw new IllegalArgumentException("Cell (" + x + ", " + y + ") is a barrier");
+        }
+        ensureColors(color + 1);
+        int cell = y * board.getWidth() + x;
+        clearCell(cell);
+        colors[color * board.getWords() + (cell >>> 6)] |= 1L << cell;
+        hash ^= zobristKey(color, cell);
     }
 
+    /** Color of the piece at (x, y), or -1 when the cell is empty. */
+    public int colorAt(int x, int y) {
+        board.checkBounds(x, y);
+        int cell = y * board.getWidth() + x;
+        int words = board.getWords();
+        for (int c = 0; c < numColors; c++) {
+            if ((colors[c * words + (cell >>> 6)] & (1L << cell)) != 0) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /** Snapshot of the pieces, ordered by color and then by cell index. */
     public List<ColoredPiece> getPieces() {
+        List<ColoredPiece> pieces = new ArrayList<>();
+        int words = board.getWords();
+        int width = board.getWidth();
+        for (int c = 0; c < numColors; c++) {
+            for (int i = 0; i < words; i++) {
+                long w = colors[c * words + i];
+                while (w != 0) {
+                    int cell = (i << 6) + Long.numberOfTrailingZeros(w);
+                    pieces.add(new ColoredPiece(c, cell % width, cell / width));
+                    w &= w - 1;
+                }
+            }
+        }
         return pieces;
     }
 
-    public int[][] getBarriers() {
-        return barriers;
+    long colorWord(int color, int i) {
+        return colors[color * board.getWords() + i];
+    }
+
+    void setColorWord(int color, int i, long bits) {
+        int index = color * board.getWords() + i;
+        hash ^= zobristBits(color, i, colors[index] ^ bits);
+        colors[index] = bits;
+    }
+
+    public int getPieceCount() {
+        int count = 0;
+        for (long w : colors) {
+            count += Long.bitCount(w);
+        }
+        return count;
     }
 
     public void saveInitialState() {
@@ -30,102 +198,204 @@ class GameState {
 
     public void reset() {
         if (initialState != null) {
-            this.pieces = new ArrayList<>();
-            for (ColoredPiece piece : initialState.pieces) {
-                this.pieces.add(new ColoredPiece(piece.getColor(), piece.getX(), piece.getY()));
-            }
-            for (int i = 0; i < height; i++) {
-                System.arraycopy(initialState.barriers[i], 0, this.barriers[i], 0, width);
-            }
+            this.board = initialState.board;
+            this.numColors = initialState.numColors;
+            this.colors = initialState.colors.clone();
+            this.hash = initialState.hash;
         }
     }
 
     public GameState copy() {
-        GameState newState = new GameState(width, height);
-        for (ColoredPiece piece : pieces) {
-            newState.pieces.add(new ColoredPiece(piece.getColor(), piece.getX(), piece.getY()));
-        }
-        for (int i = 0; i < height; i++) {
-            System.arraycopy(barriers[i], 0, newState.barriers[i], 0, width);
-        }
-        return newState;
+        return new GameState(board, numColors, colors.clone(), hash);
     }
 
-    public boolean canMove(ColoredPiece piece, int dx, int dy) {
-        int newX = piece.getX() + dx;
-        int newY = piece.getY() + dy;
+    /**
+     * Overwrites this state with {@code other}, reusing the existing array when it has the same
+     * length. {@code other} may be on another board or have another number of colors; the move
+     * buffers are then rebuilt on the next move.
+     */
+    void copyFrom(GameState other) {
+        board = other.board;
+        numColors = other.numColors;
+        hash = other.hash;
+        if (colors.length == other.colors.length) {
+            System.arraycopy(other.colors, 0, colors, 0, colors.length);
+        } else {
+            colors = other.colors.clone();
+        }
+    }
 
-        if (newX < 0 || newX >= width || newY < 0 || newY >= height) {
-            return false;
+    public void movePieces(int dx, int dy) {
+        for (int dir = 0; dir < 4; dir++) {
+            if (Board.DX[dir] == dx && Board.DY[dir] == dy) {
+                move(dir);
+                return;
+            }
         }
+        throw new IllegalArgumentException("Not a unit move: (" + dx + ", " + dy + ")");
+    }
 
-        if (barriers[newY][newX] == 1) {
-            return false;
+    /**
+     * Slides every piece in {@code dir} as far as it goes. Pieces stop at barriers, at the edge or
+     * against a piece of another color; same-colored pieces that end up next to each other along
+     * the slide collapse into one, i.e. they merge.
+     */
+    public void move(int dir) {
+        long[] moved = slide(dir, null);
+        int words = board.getWords();
+        for (int c = 0; c < numColors; c++) {
+            for (int i = 0; i < words; i++) {
+                long changed = colors[c * words + i] ^ moved[c * words + i];
+                if (changed != 0) hash ^= zobristBits(c, i, changed);
+            }
         }
+        // The old words become the next move's output buffer.
+        buffers.moved = colors;
+        colors = moved;
+    }
 
-        for (ColoredPiece other : pieces) {
-            if (other != piece && other.getX() == newX && other.getY() == newY) {
-                if (other.getColor() == piece.getColor()) {
-                    return true;
-                } else {
-                    return false;
+    /**
+     * Same as {@link #move}, also pushing onto {@code log} the words the move changes, so that
+     * {@link #unmake} can take it back.
+     */
+    void make(int dir, UndoLog log) {
+        long[] moved = slide(dir, null);
+        int words = board.getWords();
+        int changedWords = 0;
+        long oldHash = hash;
+        for (int c = 0; c < numColors; c++) {
+            for (int i = 0; i < words; i++) {
+                int index = c * words + i;
+                long changed = colors[index] ^ moved[index];
+                if (changed != 0) {
+                    hash ^= zobristBits(c, i, changed);
+                    log.push(index, colors[index]);
+                    colors[index] = moved[index];
+                    changedWords++;
                 }
             }
         }
+        log.push(changedWords, oldHash);
+    }
 
-        return true;
+    /** Takes back the last {@link #make} recorded in {@code log}. */
+    void unmake(UndoLog log) {
+        hash = log.peekWord();
+        int changedWords = log.peekIndex();
+        log.pop();
+        for (int n = 0; n < changedWords; n++) {
+            colors[log.peekIndex()] = log.peekWord();
+            log.pop();
+        }
     }
 
-    public void movePieces(int dx, int dy) {
-        List<ColoredPiece> movablePieces = new ArrayList<>();
-        for (ColoredPiece piece : pieces) {
-            if (canMove(piece, dx, dy)) {
-                movablePieces.add(piece);
+    /**
+     * Writes to {@code targets[cell]}, for every cell holding a piece, the cell that piece ends on
+     * when sliding in {@code dir}; a piece that merges gets the cell of the piece it merges into.
+     * Other entries are left alone and the state does not change.
+     */
+    void slideTargets(int dir, int[] targets) {
+        slide(dir, targets);
+    }
+
+    /**
+     * Computes the color words after sliding in {@code dir} into the output buffer, without
+     * changing the state, and the target of each piece into {@code targets} when it is not null.
+     *
+     * <p>Pieces are visited in one pass, nearest to the far end first. The board's slide distances
+     * give each piece the end of its run (the last cell before a barrier or the edge), so only
+     * piece-piece interactions are resolved here: per row (or column) the current run remembers
+     * where the next piece lands and the color that landed last, which a matching piece merges into.
+     * That is O(pieces + rows) per move, whatever the barrier layout.
+     */
+    private long[] slide(int dir, int[] targets) {
+        if (buffers == null || buffers.board != board || buffers.moved.length != colors.length) {
+            buffers = new MoveBuffers(board, colors.length);
+        }
+        MoveBuffers b = buffers;
+        int width = board.getWidth();
+        int words = board.getWords();
+        short[] grid = b.grid;
+        long[] occupied = b.occupied;
+        Arrays.fill(occupied, 0L);
+        for (int c = 0; c < numColors; c++) {
+            for (int i = 0; i < words; i++) {
+                long w = colors[c * words + i];
+                occupied[i] |= w;
+                while (w != 0) {
+                    grid[(i << 6) + Long.numberOfTrailingZeros(w)] = (short) (c + 1);
+                    w &= w - 1;
+                }
             }
         }
 
-        for (ColoredPiece piece : movablePieces) {
-            piece.setX(piece.getX() + dx);
-            piece.setY(piece.getY() + dy);
-        }
-        if (movablePieces.isEmpty())
-            return;
-        else
-            movePieces(dx, dy);
-        mergePieces();
-    }
-
-    private void mergePieces() {
-        boolean merged;
-        do {
-            merged = false;
-            for (int i = 0; i < pieces.size(); i++) {
-                for (int j = i + 1; j < pieces.size(); j++) {
-                    ColoredPiece p1 = pieces.get(i);
-                    ColoredPiece p2 = pieces.get(j);
-                    if (p1.getColor() == p2.getColor() &&
-                            p1.getX() == p2.getX() &&
-                            p1.getY() == p2.getY()) {
-                        pieces.remove(j);
-                        merged = true;
-                        break;
-                    }
+        boolean horizontal = dir == Board.LEFT || dir == Board.RIGHT;
+        boolean descending = dir == Board.DOWN || dir == Board.RIGHT; // far end has the higher cells
+        int step = board.offset(dir);
+        int lines = horizontal ? board.getHeight() : width;
+        int[] runEnd = b.runEnd;
+        int[] landing = b.landing;
+        int[] last = b.last;
+        Arrays.fill(runEnd, 0, lines, -1);
+
+        long[] moved = b.moved;
+        Arrays.fill(moved, 0L);
+        for (int k = 0; k < words; k++) {
+            int i = descending ? words - 1 - k : k;
+            long w = occupied[i];
+            while (w != 0) {
+                int bit = descending ? 63 - Long.numberOfLeadingZeros(w) : Long.numberOfTrailingZeros(w);
+                w &= ~(1L << bit);
+                int cell = (i << 6) + bit;
+                int line = horizontal ? cell / width : cell % width;
+                int end = cell + board.slideDistance(dir, cell) * step;
+                if (runEnd[line] != end) {
+                    runEnd[line] = end;
+                    landing[line] = end;
+                    last[line] = 0;
+                }
+                int value = grid[cell];
+                grid[cell] = 0;
+                if (value == last[line]) {
+                    if (targets != null) targets[cell] = landing[line] + step;
+                    continue;
                 }
-                if (merged) break;
+                int target = landing[line];
+                if (targets != null) targets[cell] = target;
+                moved[(value - 1) * words + (target >>> 6)] |= 1L << target;
+                last[line] = value;
+                landing[line] = target - step;
             }
-        } while (merged);
+        }
+        return moved;
     }
 
     public boolean isGameComplete() {
-        Map<Integer, Integer> colorCount = new HashMap<>();
-        for (ColoredPiece piece : pieces) {
-            Integer color = Integer.valueOf(piece.getColor());
-            colorCount.put(color, Integer.valueOf(colorCount.getOrDefault(color, Integer.valueOf(0)) + 1));
-        }
-
-        for (Integer count : colorCount.values()) {
+        int words = board.getWords();
+        for (int c = 0; c < numColors; c++) {
+            int count = 0;
+            for (int i = 0; i < words; i++) {
+                count += Long.bitCount(colors[c * words + i]);
+            }
             if (count > 1) return false;
         }
         return true;
     }
-}
\ No newline at end of file
+
+    private void ensureColors(int count) {
+        if (count > numColors) {
+            colors = Arrays.copyOf(colors, count * board.getWords());
+            numColors = count;
+        }
+    }
+
+    private void clearCell(int cell) {
+        int words = board.getWords();
+        for (int c = 0; c < numColors; c++) {
+            if ((colors[c * words + (cell >>> 6)] & (1L << cell)) != 0) {
+                colors[c * words + (cell >>> 6)] &= ~(1L << cell);
+                hash ^= zobristKey(c, cell);
+            }
+        }
+    }
+}
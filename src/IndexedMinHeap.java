@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of node ids with a long priority per id and a position index, so an id that is
+ * already queued can have its priority lowered in O(log n) instead of being inserted twice.
+ */
+final class IndexedMinHeap {
+    private int[] heap = new int[1024];
+    private long[] priorities = new long[1024];
+    private int[] positions = new int[1024]; // position + 1 in heap, 0 when not queued
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int id) {
+        return id < positions.length && positions[id] != 0;
+    }
+
+    /** Queues the id, or lowers its priority when it is already queued with a larger one. */
+    void offer(int id, long priority) {
+        ensureIdCapacity(id);
+        if (positions[id] != 0) {
+            if (priority < priorities[id]) {
+                priorities[id] = priority;
+                siftUp(positions[id] - 1);
+            }
+            return;
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        priorities[id] = priority;
+        heap[size] = id;
+        positions[id] = size + 1;
+        siftUp(size++);
+    }
+
+    /** Removes and returns the id with the smallest priority. */
+    int poll() {
+        int top = heap[0];
+        positions[top] = 0;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 1;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    long peekPriority() {
+        return priorities[heap[0]];
+    }
+
+    long memoryBytes() {
+        return (long) heap.length * Integer.BYTES + (long) priorities.length * Long.BYTES
+                + (long) positions.length * Integer.BYTES;
+    }
+
+    private void ensureIdCapacity(int id) {
+        if (id >= positions.length) {
+            int capacity = Math.max(positions.length * 2, id + 1);
+            positions = Arrays.copyOf(positions, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+        }
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        long priority = priorities[id];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int parentId = heap[parent];
+            if (priorities[parentId] <= priority) break;
+            heap[i] = parentId;
+            positions[parentId] = i + 1;
+            i = parent;
+        }
+        heap[i] = id;
+        positions[id] = i + 1;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        long priority = priorities[id];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && priorities[heap[child + 1]] < priorities[heap[child]]) {
+                child++;
+            }
+            int childId = heap[child];
+            if (priorities[childId] >= priority) break;
+            heap[i] = childId;
+            positions[childId] = i + 1;
+            i = child;
+        }
+        heap[i] = id;
+        positions[id] = i + 1;
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.Arrays;
+
+/**
+ * Admissible lower bound on the moves left before every color has merged into one piece.
+ *
+ * <p>For each color the two pieces farthest apart (Manhattan) must still meet. Two bounds apply:
+ * if they differ in both x and y the game needs at least one horizontal and one vertical move;
+ * and, relaxing the rules so that a piece may stop anywhere along its slide (other pieces can
+ * always stop it early), both pieces need at least {@code min over cells c of
+ * max(rook(a, c), rook(b, c))} moves, where rook is the barrier-aware rook-move distance.
+ * The estimate is the maximum over colors, since a single move can help every color at once.
+ */
+final class MergeHeuristic {
+    static final int INFINITE = Integer.MAX_VALUE;
+    private static final short UNREACHABLE = Short.MAX_VALUE;
+
+    private final Board board;
+    private final short[][] rookDistances;
+    private final int[] queue;
+
+    MergeHeuristic(Board board) {
+        this.board = board;
+        this.rookDistances = new short[board.getCells()][];
+        this.queue = new int[board.getCells()];
+    }
+
+    /** Lower bound on the remaining moves, or {@link #INFINITE} when some color can never merge. */
+    int estimate(GameState state) {
+        int words = board.getWords();
+        int width = board.getWidth();
+        int best = 0;
+        for (int c = 0; c < state.getNumColors(); c++) {
+            int a = -1, b = -1, farthest = -1;
+            int first = -1;
+            for (int i = 0; i < words; i++) {
+                long w = state.colorWord(c, i);
+                while (w != 0) {
+                    int cell = (i << 6) + Long.numberOfTrailingZeros(w);
+                    w &= w - 1;
+                    if (first < 0) {
+                        first = cell;
+                        continue;
+                    }
+                    int d = Math.abs(cell % width - first % width) + Math.abs(cell / width - first / width);
+                    if (d > farthest) {
+                        farthest = d;
+                        a = first;
+                        b = cell;
+                    }
+                }
+            }
+            if (a < 0) continue;
+            // Widen the pair: the piece farthest from b may be farther than the first piece was.
+            for (int i = 0; i < words; i++) {
+                long w = state.colorWord(c, i);
+                while (w != 0) {
+                    int cell = (i << 6) + Long.numberOfTrailingZeros(w);
+                    w &= w - 1;
+                    int d = Math.abs(cell % width - b % width) + Math.abs(cell / width - b / width);
+                    if (d > farthest) {
+                        farthest = d;
+                        a = cell;
+                    }
+                }
+            }
+            int bound = pairBound(a, b);
+            if (bound == INFINITE) return INFINITE;
+            best = Math.max(best, bound);
+        }
+        return best;
+    }
+
+    /** Lower bound on the moves needed for pieces on cells {@code a} and {@code b} to meet. */
+    int pairBound(int a, int b) {
+        int width = board.getWidth();
+        int axis = (a % width != b % width && a / width != b / width) ? 2 : 1;
+
+        short[] fromA = rookDistances(a);
+        short[] fromB = rookDistances(b);
+        int meet = UNREACHABLE;
+        for (int c = 0; c < fromA.length; c++) {
+            int d = Math.max(fromA[c], fromB[c]);
+            if (d < meet) meet = d;
+        }
+        if (meet == UNREACHABLE) return INFINITE;
+        return Math.max(axis, meet);
+    }
+
+    /** Relaxed rook-move distance from {@code from} to every cell, computed on first use. */
+    short[] rookDistances(int from) {
+        short[] dist = rookDistances[from];
+        if (dist != null) return dist;
+
+        int width = board.getWidth(), height = board.getHeight();
+        dist = new short[board.getCells()];
+        Arrays.fill(dist, UNREACHABLE);
+        dist[from] = 0;
+        int head = 0, tail = 0;
+        queue[tail++] = from;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width, y = cell / width;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + Board.DX[dir], ny = y + Board.DY[dir];
+                while (nx >= 0 && nx < width && ny >= 0 && ny < height && !board.isBarrier(nx, ny)) {
+                    int next = ny * width + nx;
+                    if (dist[next] == UNREACHABLE) {
+                        dist[next] = (short) (dist[cell] + 1);
+                        queue[tail++] = next;
+                    }
+                    nx += Board.DX[dir];
+                    ny += Board.DY[dir];
+                }
+            }
+        }
+        rookDistances[from] = dist;
+        return dist;
+    }
+}
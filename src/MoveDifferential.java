@@ -0,0 +1,161 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Differential check of {@link GameState#move} against the original list-based implementation
+ * (recursive movePieces with canMove, then mergePieces), run as a plain main class:
+ * <pre>
+ *   java -cp out MoveDifferential [boards] [seed]
+ * </pre>
+ * Every board is random, from 1x1 up to 70x20 with up to 32 colors, and gets 12 random moves; after
+ * each move the piece positions and isGameComplete must agree. Exits with status 1 on the first
+ * mismatch, printing both piece lists. {@link Benchmarks} runs a shorter {@link #check} before
+ * timing anything, so a wrong move is caught before it is measured.
+ */
+public final class MoveDifferential {
+    private static final int MOVES_PER_BOARD = 12;
+
+    private MoveDifferential() {
+    }
+
+    public static void main(String[] args) {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        if (!check(boards, seed, System.out)) {
+            System.exit(1);
+        }
+    }
+
+    /** Runs {@code boards} random boards; prints the result, and returns false on a mismatch. */
+    static boolean check(int boards, long seed, PrintStream out) {
+        Random random = new Random(seed);
+        for (int t = 0; t < boards; t++) {
+            // Every tenth board is wide, to cover rows spanning several bitboard words.
+            int width = 1 + random.nextInt(t % 10 == 0 ? 70 : 9);
+            int height = 1 + random.nextInt(t % 10 == 0 ? 20 : 9);
+            int colors = 1 + random.nextInt(t % 7 == 0 ? PuzzleIO.MAX_COLORS : 4);
+            ReferenceState reference = new ReferenceState(width, height);
+            GameState state = new GameState(width, height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int k = random.nextInt(10);
+                    if (k < 2) {
+                        reference.barriers[y][x] = true;
+                        state.setBarrier(x, y, true);
+                    } else if (k < 5) {
+                        int c = random.nextInt(colors);
+                        reference.pieces.add(new ColoredPiece(c, x, y));
+                        state.addPiece(c, x, y);
+                    }
+                }
+            }
+
+            for (int m = 0; m < MOVES_PER_BOARD; m++) {
+                int dir = random.nextInt(4);
+                reference.movePieces(Board.DX[dir], Board.DY[dir]);
+                state.move(dir);
+                String expected = describe(reference.pieces);
+                String actual = describe(state.getPieces());
+                if (!expected.equals(actual) || reference.isGameComplete() != state.isGameComplete()) {
+                    out.printf("Mismatch on board %d (%dx%d, seed %d) after move %d (%c)%n"
+                                    + "  reference: %s%n  move():    %s%n",
+                            t, width, height, seed, m + 1, MoveSequence.MOVE_CHARS[dir], expected, actual);
+                    return false;
+                }
+            }
+        }
+        out.println(boards + " boards x " + MOVES_PER_BOARD + " moves: no differences");
+        return true;
+    }
+
+    private static String describe(List<ColoredPiece> pieces) {
+        TreeSet<String> sorted = new TreeSet<>();
+        for (ColoredPiece piece : pieces) {
+            sorted.add(piece.getColor() + "@" + piece.getX() + "," + piece.getY());
+        }
+        return sorted.toString();
+    }
+
+    /** The original list-based GameState move rules, as the reference. */
+    private static final class ReferenceState {
+        private final List<ColoredPiece> pieces = new ArrayList<>();
+        private final boolean[][] barriers;
+        private final int width, height;
+
+        ReferenceState(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.barriers = new boolean[height][width];
+        }
+
+        boolean canMove(ColoredPiece piece, int dx, int dy) {
+            int newX = piece.getX() + dx;
+            int newY = piece.getY() + dy;
+
+            if (newX < 0 || newX >= width || newY < 0 || newY >= height) {
+                return false;
+            }
+            if (barriers[newY][newX]) {
+                return false;
+            }
+            for (ColoredPiece other : pieces) {
+                if (other != piece && other.getX() == newX && other.getY() == newY) {
+                    return other.getColor() == piece.getColor();
+                }
+            }
+            return true;
+        }
+
+        void movePieces(int dx, int dy) {
+            List<ColoredPiece> movablePieces = new ArrayList<>();
+            for (ColoredPiece piece : pieces) {
+                if (canMove(piece, dx, dy)) {
+                    movablePieces.add(piece);
+                }
+            }
+            for (ColoredPiece piece : movablePieces) {
+                piece.setX(piece.getX() + dx);
+                piece.setY(piece.getY() + dy);
+            }
+            if (movablePieces.isEmpty()) {
+                return;
+            }
+            movePieces(dx, dy);
+            mergePieces();
+        }
+
+        private void mergePieces() {
+            boolean merged;
+            do {
+                merged = false;
+                for (int i = 0; i < pieces.size() && !merged; i++) {
+                    for (int j = i + 1; j < pieces.size(); j++) {
+                        ColoredPiece p1 = pieces.get(i);
+                        ColoredPiece p2 = pieces.get(j);
+                        if (p1.getColor() == p2.getColor() && p1.getX() == p2.getX() && p1.getY() == p2.getY()) {
+                            pieces.remove(j);
+                            merged = true;
+                            break;
+                        }
+                    }
+                }
+            } while (merged);
+        }
+
+        boolean isGameComplete() {
+            Map<Integer, Integer> colorCount = new HashMap<>();
+            for (ColoredPiece piece : pieces) {
+                colorCount.merge(piece.getColor(), 1, Integer::sum);
+            }
+            for (int count : colorCount.values()) {
+                if (count > 1) return false;
+            }
+            return true;
+        }
+    }
+}
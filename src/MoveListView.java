@@ -0,0 +1,163 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Painted list of a solution's moves. Repeats of one move are collapsed into a single cell (the
+ * move number, its arrow and "×count"), laid out {@value #RUNS_PER_ROW} cells to a row. Only the
+ * rows inside the clip are painted, straight from the packed {@link MoveSequence}, so a solution
+ * costs one int per run and no child components however long it is.
+ */
+final class MoveListView extends JComponent implements Scrollable {
+    private static final int RUNS_PER_ROW = 8;
+    private static final int CELL_WIDTH = 32;
+    private static final int CELL_HEIGHT = 46;
+    private static final String[] ARROWS = {"↑", "↓", "←", "→"}; // indexed by direction
+    private static final Font NUMBER_FONT = new Font("Arial", Font.PLAIN, 10);
+    private static final Font ARROW_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Color CURRENT_COLOR = new Color(0xFFF2A8);
+
+    private final MoveSequence moves;
+    private final int[] runStarts; // first move of each run, then moves.size()
+    private int currentRun = -1;
+
+    /** Clicking a cell passes the number of moves before its run to {@code onSeek}. */
+    MoveListView(MoveSequence moves, IntConsumer onSeek) {
+        this.moves = moves;
+        int[] starts = new int[16];
+        int runs = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            if (i == 0 || moves.moveAt(i) != moves.moveAt(i - 1)) {
+                if (runs == starts.length) starts = Arrays.copyOf(starts, runs * 2);
+                starts[runs++] = i;
+            }
+        }
+        this.runStarts = Arrays.copyOf(starts, runs + 1);
+        runStarts[runs] = moves.size();
+
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        int rows = (runs + RUNS_PER_ROW - 1) / RUNS_PER_ROW;
+        setPreferredSize(new Dimension(RUNS_PER_ROW * CELL_WIDTH, rows * CELL_HEIGHT));
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int column = e.getX() / CELL_WIDTH;
+                int run = e.getY() / CELL_HEIGHT * RUNS_PER_ROW + column;
+                if (column < RUNS_PER_ROW && run < runCount()) {
+                    onSeek.accept(runStarts[run]);
+                }
+            }
+        });
+    }
+
+    int runCount() {
+        return runStarts.length - 1;
+    }
+
+    /** Highlights the run holding the next move after {@code position} moves, and scrolls to it. */
+    void setPosition(int position) {
+        int run = -1;
+        if (position < moves.size()) {
+            run = Arrays.binarySearch(runStarts, position);
+            if (run < 0) run = -run - 2;
+        }
+        if (run == currentRun) {
+            return;
+        }
+        repaintRun(currentRun);
+        currentRun = run;
+        repaintRun(run);
+        if (run >= 0) {
+            scrollRectToVisible(cellBounds(run));
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (g instanceof Graphics2D g2d) {
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        }
+
+        FontMetrics numberMetrics = g.getFontMetrics(NUMBER_FONT);
+        FontMetrics arrowMetrics = g.getFontMetrics(ARROW_FONT);
+        int firstRow = clip.y / CELL_HEIGHT;
+        int lastRow = (clip.y + clip.height - 1) / CELL_HEIGHT;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = 0; column < RUNS_PER_ROW; column++) {
+                int run = row * RUNS_PER_ROW + column;
+                if (run >= runCount()) return;
+                int x = column * CELL_WIDTH, y = row * CELL_HEIGHT;
+                int start = runStarts[run];
+                int count = runStarts[run + 1] - start;
+
+                if (run == currentRun) {
+                    g.setColor(CURRENT_COLOR);
+                    g.fillRect(x + 1, y + 1, CELL_WIDTH - 2, CELL_HEIGHT - 2);
+                }
+                g.setColor(Color.GRAY);
+                g.drawRect(x + 1, y + 1, CELL_WIDTH - 3, CELL_HEIGHT - 3);
+
+                g.setColor(Color.BLACK);
+                g.setFont(NUMBER_FONT);
+                drawCentered(g, numberMetrics, String.valueOf(start + 1), x, y + 13);
+                g.setFont(ARROW_FONT);
+                drawCentered(g, arrowMetrics, ARROWS[moves.moveAt(start)], x, y + 30);
+                if (count > 1) {
+                    g.setFont(NUMBER_FONT);
+                    drawCentered(g, numberMetrics, "×" + count, x, y + 41);
+                }
+            }
+        }
+    }
+
+    private static void drawCentered(Graphics g, FontMetrics metrics, String text, int cellX, int baseline) {
+        g.drawString(text, cellX + (CELL_WIDTH - metrics.stringWidth(text)) / 2, baseline);
+    }
+
+    private Rectangle cellBounds(int run) {
+        return new Rectangle(run % RUNS_PER_ROW * CELL_WIDTH, run / RUNS_PER_ROW * CELL_HEIGHT, CELL_WIDTH, CELL_HEIGHT);
+    }
+
+    private void repaintRun(int run) {
+        if (run >= 0) {
+            repaint(cellBounds(run));
+        }
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? CELL_HEIGHT : CELL_WIDTH;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        int unit = getScrollableUnitIncrement(visibleRect, orientation, direction);
+        int extent = orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+        return Math.max(unit, extent / unit * unit);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Immutable move list packed at 2 bits per move (0 = U, 1 = D, 2 = L, 3 = R, matching the
+ * direction indices of {@link Board}). The {@code List<Character>} view decodes on access.
+ */
+final class MoveSequence extends AbstractList<Character> implements RandomAccess {
+    static final char[] MOVE_CHARS = {'U', 'D', 'L', 'R'};
+    static final MoveSequence EMPTY = new MoveSequence(new long[0], 0);
+
+    private final long[] packed;
+    private final int size;
+
+    private MoveSequence(long[] packed, int size) {
+        this.packed = packed;
+        this.size = size;
+    }
+
+    static int directionOf(char move) {
+        return switch (move) {
+            case 'U' -> Board.UP;
+            case 'D' -> Board.DOWN;
+            case 'L' -> Board.LEFT;
+            case 'R' -> Board.RIGHT;
+            default -> throw new IllegalArgumentException("Unknown move: " + move);
+        };
+    }
+
+    /** Direction index of move {@code i}. */
+    int moveAt(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return (int) (packed[i >>> 5] >>> ((i & 31) << 1)) & 3;
+    }
+
+    @Override
+    public Character get(int i) {
+        return MOVE_CHARS[moveAt(i)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Copy of the packed words, 32 moves per long, first move in the lowest bits. */
+    long[] toPackedArray() {
+        return Arrays.copyOf(packed, (size + 31) >>> 5);
+    }
+
+    static MoveSequence fromPacked(long[] packed, int size) {
+        return new MoveSequence(Arrays.copyOf(packed, (size + 31) >>> 5), size);
+    }
+
+    /** Growable stack of moves, used by searches that keep the current path explicitly. */
+    static final class Builder {
+        private long[] packed = new long[4];
+        private int size;
+
+        Builder add(int move) {
+            if ((size >>> 5) == packed.length) {
+                packed = Arrays.copyOf(packed, packed.length * 2);
+            }
+            int shift = (size & 31) << 1;
+            packed[size >>> 5] = (packed[size >>> 5] & ~(3L << shift)) | ((long) move << shift);
+            size++;
+            return this;
+        }
+
+        Builder addAll(MoveSequence moves) {
+            for (int i = 0; i < moves.size(); i++) {
+                add(moves.moveAt(i));
+            }
+            return this;
+        }
+
+        void removeLast() {
+            size--;
+        }
+
+        int size() {
+            return size;
+        }
+
+        MoveSequence build() {
+            return fromPacked(packed, size);
+        }
+    }
+}
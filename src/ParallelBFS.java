@@ -0,0 +1,255 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Level-synchronous BFS. Each depth layer is cut into fixed-size chunks that worker threads expand
+ * in parallel, filtering children against the visited set, which is read-only during that phase.
+ * The surviving children are then merged into the visited set by one thread, in chunk order.
+ * Since chunking does not depend on the thread count, node ids, the next layer and the returned
+ * (shortest) solution are identical for any number of threads. Like the sequential BFS, the
+ * visited set holds keys canonical under the board's symmetries; each chunk has its own
+ * {@link BoardSymmetry}, and the solution is replayed on the actual start at the end.
+ *
+ * <p>Workers only poll {@link SearchBudget#isExpired}; expansions are counted against the budget
+ * by the coordinating thread once per layer, so the node cap can be overrun by up to one layer.
+ * Running out of budget ends the search without cancelling the caller's budget. A layer cut short by cancellation or the deadline is never merged as if it were complete.
+ */
+final class ParallelBFS {
+    private static final int CHUNK_SIZE = 512;
+    private static final int EXPIRY_CHECK_INTERVAL = 64; // expansions between worker budget polls
+
+    private ParallelBFS() {
+    }
+
+    record ParallelSearchResult(
+            GameSolver.SearchResult result,
+            int threads,
+            long[] expandedPerThread,
+            long[] busyNanosPerThread
+    ) {
+        /** Expansions per second of busy time for each worker. */
+        double[] expansionRates() {
+            double[] rates = new double[threads];
+            for (int t = 0; t < threads; t++) {
+                rates[t] = busyNanosPerThread[t] == 0 ? 0 : expandedPerThread[t] * 1e9 / busyNanosPerThread[t];
+            }
+            return rates;
+        }
+
+        /** Busy worker time over threads x wall time; 1.0 means every core expanded nodes the whole run. */
+        double scalingEfficiency() {
+            long busy = 0;
+            for (long b : busyNanosPerThread) busy += b;
+            double wall = Math.max(1, result.executionTimeMillis()) * 1e6;
+            return busy / (threads * wall);
+        }
+    }
+
+    /**
+     * Candidate children produced by one chunk: keys back to back, their Zobrist hashes and
+     * parent << 2 | move links.
+     */
+    private static final class ChunkOutput {
+        long[] keys;
+        long[] hashes;
+        int[] links;
+        int count;
+        int goal = -1; // position in the layer of the first goal state in this chunk
+        long expanded;
+    }
+
+    static ParallelSearchResult solve(GameState initialState, int threads) {
+        return solve(initialState, threads, SearchBudget.unlimited());
+    }
+
+    static ParallelSearchResult solve(GameState initialState, int threads, SearchBudget budget) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        long startTime = System.nanoTime();
+        GameSolver.SearchResult dead = GameSolver.provedDead("pbfs", initialState, startTime);
+        if (dead != null) {
+            return new ParallelSearchResult(dead, threads, new long[threads], new long[threads]);
+        }
+        AtomicLongArray expanded = new AtomicLongArray(threads);
+        AtomicLongArray busy = new AtomicLongArray(threads);
+
+        StateCodec codec = StateCodec.forState(initialState);
+        int keyLength = codec.keyLength();
+        StateKeySet visited = new StateKeySet(keyLength);
+        SearchTree tree = new SearchTree();
+        long generated = 0;
+        long totalExpanded = 0;
+
+        long[] key = new long[keyLength];
+        BoardSymmetry symmetry = new BoardSymmetry(initialState);
+        visited.add(key, 0, symmetry.canonicalKey(initialState, key, 0));
+        tree.add(-1, 0);
+        int[] layer = {0};
+        int layerSize = 1;
+        int depth = 0;
+
+        boolean aborted = false;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            while (layerSize > 0) {
+                if (budget.shouldStopNow(visited.memoryBytes() + tree.memoryBytes())) {
+                    aborted = true;
+                    break;
+                }
+                int[] current = layer;
+                int size = layerSize;
+                List<Callable<ChunkOutput>> tasks = new ArrayList<>();
+                for (int start = 0; start < size; start += CHUNK_SIZE) {
+                    int from = start, to = Math.min(size, start + CHUNK_SIZE);
+                    tasks.add(() -> expandChunk(initialState, codec, visited, current, from, to, expanded, busy, budget));
+                }
+
+                List<ChunkOutput> outputs = new ArrayList<>(tasks.size());
+                for (Future<ChunkOutput> future : pool.invokeAll(tasks)) {
+                    outputs.add(future.get());
+                }
+
+                long layerExpanded = 0;
+                for (ChunkOutput out : outputs) {
+                    layerExpanded += out.expanded;
+                }
+                totalExpanded += layerExpanded;
+                generated += layerExpanded * 4;
+                for (ChunkOutput out : outputs) {
+                    if (out.goal >= 0) {
+                        MoveSequence solution = GameSolver.replayPath(initialState.copy(), current[out.goal],
+                                tree, visited, symmetry);
+                        return result(solution, false, visited, tree, totalExpanded, generated, startTime, threads, expanded, busy);
+                    }
+                }
+                // A worker that saw the budget expire left its chunk unfinished.
+                if (budget.isExpired()) {
+                    aborted = true;
+                    break;
+                }
+                if (budget.shouldStopAfter(layerExpanded, visited.memoryBytes() + tree.memoryBytes())) {
+                    aborted = true;
+                    break;
+                }
+
+                int[] next = new int[Math.max(16, size * 2)];
+                int nextSize = 0;
+                for (ChunkOutput out : outputs) {
+                    for (int j = 0; j < out.count; j++) {
+                        if (visited.add(out.keys, j * keyLength, out.hashes[j])) {
+                            int link = out.links[j];
+                            int id = tree.add(link >>> 2, link & 3);
+                            if (nextSize == next.length) {
+                                next = Arrays.copyOf(next, nextSize * 2);
+                            }
+                            next[nextSize++] = id;
+                        }
+                    }
+                }
+                layer = next;
+                layerSize = nextSize;
+                depth++;
+                if (budget.progressDue()) {
+                    budget.report(depth, layerSize, visited.size(), totalExpanded);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aborted = true;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parallel BFS worker failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return result(null, aborted, visited, tree, totalExpanded, generated, startTime, threads, expanded, busy);
+    }
+
+    private static ChunkOutput expandChunk(
+            GameState initialState,
+            StateCodec codec,
+            StateKeySet visited,
+            int[] layer,
+            int from,
+            int to,
+            AtomicLongArray expanded,
+            AtomicLongArray busy,
+            SearchBudget budget
+    ) {
+        long start = System.nanoTime();
+        int keyLength = codec.keyLength();
+        ChunkOutput out = new ChunkOutput();
+        out.keys = new long[(to - from) * 4 * keyLength];
+        out.hashes = new long[(to - from) * 4];
+        out.links = new int[(to - from) * 4];
+
+        GameState state = initialState.copy();
+        BoardSymmetry symmetry = new BoardSymmetry(initialState);
+        UndoLog undo = new UndoLog();
+        long[] key = new long[keyLength];
+        for (int pos = from; pos < to; pos++) {
+            if ((pos - from) % EXPIRY_CHECK_INTERVAL == 0 && budget.isExpired()) {
+                break;
+            }
+            int id = layer[pos];
+            visited.getKey(id, key, 0);
+            codec.decode(key, 0, state);
+            if (state.isGameComplete()) {
+                out.goal = pos;
+                break;
+            }
+
+            out.expanded++;
+            for (int i = 3; i >= 0; i--) {
+                state.make(i, undo);
+                int off = out.count * keyLength;
+                long hash = symmetry.canonicalKey(state, out.keys, off);
+                if (!visited.contains(out.keys, off, hash)) {
+                    out.hashes[out.count] = hash;
+                    out.links[out.count++] = (id << 2) | i;
+                }
+                state.unmake(undo);
+            }
+        }
+
+        int worker = Thread.currentThread() instanceof ForkJoinWorkerThread w ? w.getPoolIndex() : 0;
+        worker = Math.floorMod(worker, expanded.length());
+        expanded.addAndGet(worker, out.expanded);
+        busy.addAndGet(worker, System.nanoTime() - start);
+        return out;
+    }
+
+    private static ParallelSearchResult result(
+            MoveSequence solution,
+            boolean aborted,
+            StateKeySet visited,
+            SearchTree tree,
+            long expandedNodes,
+            long generatedNodes,
+            long startTime,
+            int threads,
+            AtomicLongArray expanded,
+            AtomicLongArray busy
+    ) {
+        long executionTime = (System.nanoTime() - startTime) / 1_000_000;
+        GameSolver.SearchResult result = new GameSolver.SearchResult(solution, visited.size(), executionTime,
+                visited.memoryBytes() + tree.memoryBytes(), expandedNodes, generatedNodes,
+                solution != null ? GameSolver.SearchStatus.SOLVED
+                        : aborted ? GameSolver.SearchStatus.LIMIT_REACHED : GameSolver.SearchStatus.NO_SOLUTION);
+        long[] expandedPerThread = new long[threads];
+        long[] busyPerThread = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            expandedPerThread[t] = expanded.get(t);
+            busyPerThread[t] = busy.get(t);
+        }
+        return new ParallelSearchResult(result, threads, expandedPerThread, busyPerThread);
+    }
+}
@@ -0,0 +1,32 @@
+import java.awt.*;
+
+/**
+ * Colors for drawing pieces, one per color index up to {@link PuzzleIO#MAX_COLORS}: the original
+ * eight, then hues spread by the golden angle over alternating saturations and brightnesses so
+ * that neighbouring indices stay easy to tell apart.
+ */
+final class PieceColors {
+    private static final Color[] COLORS = new Color[PuzzleIO.MAX_COLORS];
+
+    static {
+        Color[] base = {
+                Color.RED, Color.BLUE, Color.GREEN, Color.YELLOW,
+                Color.ORANGE, Color.PINK, Color.CYAN, Color.MAGENTA
+        };
+        System.arraycopy(base, 0, COLORS, 0, base.length);
+        for (int i = base.length; i < COLORS.length; i++) {
+            int k = i - base.length;
+            float hue = (k * 0.618034f + 0.05f) % 1f;
+            float saturation = k % 2 == 0 ? 0.6f : 0.95f;
+            float brightness = k % 3 == 0 ? 0.5f : k % 3 == 1 ? 0.75f : 0.95f;
+            COLORS[i] = Color.getHSBColor(hue, saturation, brightness);
+        }
+    }
+
+    private PieceColors() {
+    }
+
+    static Color of(int color) {
+        return COLORS[color % COLORS.length];
+    }
+}
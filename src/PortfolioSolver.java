@@ -0,0 +1,93 @@
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+/**
+ * Races every {@link GameSolver} algorithm on the same puzzle, one platform thread each (the
+ * searches are CPU-bound and never block, so virtual threads would gain nothing), and keeps the
+ * first answer: any solution, or with {@code optimal} only one from a strategy that finds
+ * shortest solutions. Every search is exhaustive, so whichever strategy finishes first without a
+ * solution settles NO_SOLUTION. A strategy that throws just loses the race. Each strategy searches
+ * under a {@link SearchBudget#share} of the budget, so the node and memory caps hold for all of
+ * them together and the budget's listener sees their summed progress. The losers are cancelled as
+ * soon as there is a winner, and the call returns once they have all stopped.
+ */
+final class PortfolioSolver {
+    record Strategy(String name, boolean optimal,
+                    BiFunction<GameState, SearchBudget, GameSolver.SearchResult> solver) {}
+
+    /** The accepted result and the strategy that produced it; winner is null when none finished in budget. */
+    record PortfolioResult(GameSolver.SearchResult result, String winner) {}
+
+    static final List<Strategy> STRATEGIES = List.of(
+            new Strategy("bfs", true, GameSolver::solveBFSWithStats),
+            new Strategy("dfs", false, GameSolver::solveDFSWithStats),
+            new Strategy("rdfs", false, GameSolver::solveRecursiveDFSWithStats),
+            new Strategy("astar", true, GameSolver::solveAStarWithStats),
+            new Strategy("idastar", true, GameSolver::solveIDAStarWithStats)
+    );
+
+    private static final GameSolver.SearchResult EMPTY =
+            new GameSolver.SearchResult(null, 0, 0, 0, 0, 0, GameSolver.SearchStatus.LIMIT_REACHED);
+
+    private PortfolioSolver() {
+    }
+
+    static PortfolioResult solve(GameState initialState, boolean optimal, SearchBudget budget) {
+        SearchBudget race = budget.share(); // cancelled once there is a winner
+        GameSolver.SearchResult last = null;
+        try (ExecutorService executor = Executors.newFixedThreadPool(STRATEGIES.size())) {
+            ExecutorCompletionService<Finished> finished = new ExecutorCompletionService<>(executor);
+            for (Strategy strategy : STRATEGIES) {
+                SearchBudget share = race.share();
+                // Each search gets its own copy, so no state object is shared between threads.
+                GameState state = initialState.copy();
+                finished.submit(() -> new Finished(strategy, run(strategy, state, share)));
+            }
+            try {
+                for (int n = 0; n < STRATEGIES.size(); n++) {
+                    Finished done;
+                    try {
+                        done = finished.take().get();
+                    } catch (ExecutionException e) {
+                        System.err.println("Portfolio strategy failed: " + e.getCause());
+                        continue;
+                    }
+                    last = done.result();
+                    GameSolver.SearchStatus status = last.status();
+                    if (status == GameSolver.SearchStatus.NO_SOLUTION
+                            || status == GameSolver.SearchStatus.SOLVED && (done.strategy().optimal() || !optimal)) {
+                        race.cancel();
+                        return new PortfolioResult(last, done.strategy().name());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                race.cancel();
+            }
+        }
+        return new PortfolioResult(last != null ? withoutSolution(last) : EMPTY, null);
+    }
+
+    private record Finished(Strategy strategy, GameSolver.SearchResult result) {}
+
+    private static GameSolver.SearchResult run(Strategy strategy, GameState state, SearchBudget budget) {
+        try {
+            return strategy.solver().apply(state, budget);
+        } catch (StackOverflowError e) {
+            // Recursive DFS on a deep state space; the other strategies carry on.
+            return EMPTY;
+        } finally {
+            budget.release();
+        }
+    }
+
+    /** A rejected, non-optimal solution is not an answer: report the search as out of budget. */
+    private static GameSolver.SearchResult withoutSolution(GameSolver.SearchResult r) {
+        return new GameSolver.SearchResult(null, r.visitedNodes(), r.executionTimeMillis(), r.visitedBytes(),
+                r.expandedNodes(), r.generatedNodes(), GameSolver.SearchStatus.LIMIT_REACHED);
+    }
+}
@@ -0,0 +1,231 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Plain-text puzzle format. A puzzle is a header line {@code width height} followed by one line
+ * per row: {@code .} empty, {@code #} barrier, {@code 0-9} and {@code a-v} a piece of color 0..31.
+ * Several puzzles may follow each other in one file; lines starting with {@code ;} are comments.
+ * <pre>
+ * ; two reds and a blue
+ * 4 3
+ * 0..1
+ * .##.
+ * ...0
+ * </pre>
+ *
+ * <p>The binary format ({@code .stk} files, and the records of a {@link PuzzleLibrary}) is a magic
+ * number, then varint width and height, a barrier bitmap of ceil(cells / 8) bytes, a varint piece
+ * count and, per piece, its varint cell index and a color byte. A 10x10 board with a dozen pieces
+ * takes about 40 bytes.
+ */
+final class PuzzleIO {
+    static final int MAX_COLORS = 32;
+    private static final String COLOR_CHARS = "0123456789abcdefghijklmnopqrstuv";
+    static final int BINARY_MAGIC = 0x53544B31; // "STK1"
+    static final String BINARY_EXTENSION = ".stk";
+
+    private PuzzleIO() {
+    }
+
+    static char colorChar(int color) {
+        return COLOR_CHARS.charAt(color);
+    }
+
+    static String toText(GameState state) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(state.getWidth()).append(' ').append(state.getHeight()).append('\n');
+        for (int y = 0; y < state.getHeight(); y++) {
+            for (int x = 0; x < state.getWidth(); x++) {
+                int color = state.colorAt(x, y);
+                sb.append(state.isBarrier(x, y) ? '#' : color < 0 ? '.' : colorChar(color));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    static GameState parseText(String text) {
+        try {
+            GameState state = readText(new BufferedReader(new StringReader(text)));
+            if (state == null) {
+                throw new IllegalArgumentException("No puzzle in text");
+            }
+            return state;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Reads the next puzzle, or returns null at end of input. */
+    static GameState readText(BufferedReader in) throws IOException {
+        String header;
+        do {
+            header = in.readLine();
+            if (header == null) return null;
+        } while (header.isBlank() || header.startsWith(";"));
+
+        String[] parts = header.trim().split("\\s+");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Expected 'width height', got: " + header);
+        }
+        int width, height;
+        try {
+            width = Integer.parseInt(parts[0]);
+            height = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected 'width height', got: " + header);
+        }
+
+        GameState state = new GameState(width, height);
+        long[] barriers = new long[Board.wordsFor(width * height)];
+        for (int y = 0; y < height; y++) {
+            String row = in.readLine();
+            if (row == null) {
+                throw new IllegalArgumentException("Puzzle ends after " + y + " of " + height + " rows");
+            }
+            if (row.length() != width) {
+                throw new IllegalArgumentException("Row " + y + " has " + row.length() + " cells, expected " + width);
+            }
+            for (int x = 0; x < width; x++) {
+                char c = row.charAt(x);
+                if (c == '#') {
+                    int cell = y * width + x;
+                    barriers[cell >>> 6] |= 1L << cell;
+                } else if (c != '.') {
+                    int color = COLOR_CHARS.indexOf(Character.toLowerCase(c));
+                    if (color < 0) {
+                        throw new IllegalArgumentException("Unknown cell '" + c + "' at (" + x + ", " + y + ")");
+                    }
+                    state.addPiece(color, x, y);
+                }
+            }
+        }
+        state.setBarriers(barriers);
+        state.saveInitialState();
+        return state;
+    }
+
+    /** Saves as binary when the file name ends in {@code .stk}, as text otherwise. */
+    static void save(GameState state, Path file) throws IOException {
+        if (file.getFileName().toString().endsWith(BINARY_EXTENSION)) {
+            Files.write(file, toBinary(state));
+        } else {
+            Files.writeString(file, toText(state), StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Loads the first puzzle of a binary ({@code .stk}) or text file. */
+    static GameState load(Path file) throws IOException {
+        if (file.getFileName().toString().endsWith(BINARY_EXTENSION)) {
+            return fromBinary(ByteBuffer.wrap(Files.readAllBytes(file)));
+        }
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            GameState state = readText(in);
+            if (state == null) {
+                throw new IllegalArgumentException("No puzzle in " + file);
+            }
+            return state;
+        }
+    }
+
+    static byte[] toBinary(GameState state) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        writeInt(out, BINARY_MAGIC);
+        writeRecord(state, out);
+        return out.toByteArray();
+    }
+
+    static GameState fromBinary(ByteBuffer in) {
+        if (in.remaining() < 4 || in.getInt() != BINARY_MAGIC) {
+            throw new IllegalArgumentException("Not a binary puzzle");
+        }
+        return readRecord(in);
+    }
+
+    /** Writes the magic-less puzzle record used inside binary files and libraries. */
+    static void writeRecord(GameState state, ByteArrayOutputStream out) {
+        int width = state.getWidth(), height = state.getHeight();
+        writeVarint(out, width);
+        writeVarint(out, height);
+
+        byte[] barriers = new byte[(width * height + 7) >>> 3];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (state.isBarrier(x, y)) {
+                    int cell = y * width + x;
+                    barriers[cell >>> 3] |= (byte) (1 << (cell & 7));
+                }
+            }
+        }
+        out.write(barriers, 0, barriers.length);
+
+        List<ColoredPiece> pieces = state.getPieces();
+        writeVarint(out, pieces.size());
+        for (ColoredPiece piece : pieces) {
+            writeVarint(out, piece.getY() * width + piece.getX());
+            out.write(piece.getColor());
+        }
+    }
+
+    static GameState readRecord(ByteBuffer in) {
+        try {
+            int width = readVarint(in), height = readVarint(in);
+            GameState state = new GameState(width, height);
+            byte[] barriers = new byte[(width * height + 7) >>> 3];
+            in.get(barriers);
+            long[] mask = new long[Board.wordsFor(width * height)];
+            for (int cell = 0; cell < width * height; cell++) {
+                if ((barriers[cell >>> 3] & (1 << (cell & 7))) != 0) {
+                    mask[cell >>> 6] |= 1L << cell;
+                }
+            }
+            state.setBarriers(mask);
+            int pieces = readVarint(in);
+            for (int i = 0; i < pieces; i++) {
+                int cell = readVarint(in);
+                int color = in.get() & 0xFF;
+                if (cell >= width * height || color >= MAX_COLORS) {
+                    throw new IllegalArgumentException("Bad piece " + color + " at cell " + cell);
+                }
+                state.addPiece(color, cell % width, cell / width);
+            }
+            state.saveInitialState();
+            return state;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated binary puzzle", e);
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
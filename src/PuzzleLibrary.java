@@ -0,0 +1,166 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A file of binary puzzle records with an offset index at the end, so any single puzzle can be
+ * loaded in O(1) without parsing the others.
+ * <pre>
+ *   header : int magic "STKL", int version, long count, long indexOffset
+ *   records: PuzzleIO binary records, back to back
+ *   index  : count longs, the file offset of each record
+ * </pre>
+ * Readers memory-map only the index; records are fetched with one positional read each.
+ */
+final class PuzzleLibrary implements Closeable {
+    static final String EXTENSION = ".stkl";
+    private static final int MAGIC = 0x53544B4C; // "STKL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int SEGMENT_SHIFT = 30; // map the index in 1 GiB slices
+
+    private final FileChannel channel;
+    private final long count;
+    private final long indexOffset;
+    private final MappedByteBuffer[] indexSegments;
+
+    private PuzzleLibrary(FileChannel channel, long count, long indexOffset, MappedByteBuffer[] indexSegments) {
+        this.channel = channel;
+        this.count = count;
+        this.indexOffset = indexOffset;
+        this.indexSegments = indexSegments;
+    }
+
+    static PuzzleLibrary open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a puzzle library: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported puzzle library version " + version);
+            }
+            long count = header.getLong();
+            long indexOffset = header.getLong();
+            long indexBytes = count * Long.BYTES;
+            if (count < 0 || indexOffset < HEADER_BYTES || indexOffset + indexBytes > channel.size()) {
+                throw new IllegalArgumentException("Corrupt puzzle library index: " + file);
+            }
+
+            int segments = (int) ((indexBytes + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT);
+            MappedByteBuffer[] indexSegments = new MappedByteBuffer[segments];
+            for (int s = 0; s < segments; s++) {
+                long start = (long) s << SEGMENT_SHIFT;
+                long length = Math.min(1L << SEGMENT_SHIFT, indexBytes - start);
+                indexSegments[s] = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset + start, length);
+            }
+            return new PuzzleLibrary(channel, count, indexOffset, indexSegments);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    long size() {
+        return count;
+    }
+
+    /** Loads puzzle {@code i}: two index lookups and one read of just that record. */
+    GameState get(long i) throws IOException {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("Puzzle " + i + " of " + count);
+        }
+        long start = offset(i);
+        long end = i + 1 < count ? offset(i + 1) : indexOffset;
+        ByteBuffer record = ByteBuffer.allocate((int) (end - start));
+        while (record.hasRemaining()) {
+            if (channel.read(record, start + record.position()) < 0) {
+                throw new IllegalArgumentException("Truncated puzzle record " + i);
+            }
+        }
+        record.flip();
+        return PuzzleIO.readRecord(record);
+    }
+
+    private long offset(long i) {
+        long position = i * Long.BYTES;
+        return indexSegments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & ((1L << SEGMENT_SHIFT) - 1)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** Appends puzzles to a new library file; the index is written on {@link #close()}. */
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream(64);
+        private long[] offsets = new long[1024];
+        private long count;
+        private long position = HEADER_BYTES;
+
+        Writer(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        long size() {
+            return count;
+        }
+
+        void add(GameState state) throws IOException {
+            record.reset();
+            PuzzleIO.writeRecord(state, record);
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[(int) count++] = position;
+            position += writeFully(ByteBuffer.wrap(record.toByteArray()), position);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                long indexOffset = position;
+                ByteBuffer index = ByteBuffer.allocate(1 << 16);
+                for (long i = 0; i < count; i++) {
+                    if (!index.hasRemaining()) {
+                        index.flip();
+                        position += writeFully(index, position);
+                        index.clear();
+                    }
+                    index.putLong(offsets[(int) i]);
+                }
+                index.flip();
+                position += writeFully(index, position);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).putLong(count).putLong(indexOffset).flip();
+                writeFully(header, 0);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private int writeFully(ByteBuffer buffer, long at) throws IOException {
+            int length = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, at + length - buffer.remaining());
+            }
+            return length;
+        }
+    }
+}
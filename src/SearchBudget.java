@@ -0,0 +1,269 @@
+import jdk.jfr.EventType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Limits a search may run under: a wall-clock deadline, a cap on the bytes held by its search
+ * structures, a cap on expanded nodes, and a cancel flag that any thread may set. Solvers poll
+ * {@link #shouldStop} once per expansion and give up with
+ * {@link GameSolver.SearchStatus#LIMIT_REACHED}.
+ *
+ * <p>A budget can also carry a progress listener. {@link #shouldStop} raises {@link #progressDue}
+ * at most once per interval, and the solver then hands a snapshot to {@link #report}, on the
+ * search thread. While a Flight Recorder recording has {@link SearchProgressEvent} enabled,
+ * snapshots are also due, once a second by default, and each one is committed as an event.
+ *
+ * <p>Searches run side by side each get a {@link #share} of one budget. A share counts nodes and
+ * bytes on its own thread and hands them up every few hundred calls, so the caps hold for all the
+ * shares together, and their progress snapshots are summed into the parent's listener.
+ */
+final class SearchBudget {
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+    private static final long DEFAULT_PROGRESS_INTERVAL_NANOS = 1_000_000_000L;
+    private static final EventType PROGRESS_EVENT = EventType.getEventType(SearchProgressEvent.class);
+
+    /** What a search is doing right now; depth and frontier are as the reporting solver sees them. */
+    record Progress(int depth, long frontier, long visited, long expanded, long elapsedMillis) {
+        double nodesPerSecond() {
+            return elapsedMillis == 0 ? 0 : expanded * 1000.0 / elapsedMillis;
+        }
+    }
+
+    private final SearchBudget parent; // cancelling the parent cancels this budget too
+    private final boolean shared;      // counts against the parent's caps too; see share()
+    private final long startNanos;
+    private final long deadlineNanos;
+    private final long maxBytes;
+    private final long maxNodes;
+    private volatile boolean cancelled;
+    private int clockCountdown = CLOCK_CHECK_INTERVAL;
+    private long nodes; // expansions counted on the searching thread
+    private long flushedNodes;    // part of nodes already handed up to the parents
+    private long flushedBytes;    // memory last handed up to the parents
+    private final AtomicLong sharedNodes = new AtomicLong(); // totals handed up by the shares
+    private final AtomicLong sharedBytes = new AtomicLong();
+    private final List<SearchBudget> shares = new CopyOnWriteArrayList<>();
+    private volatile Progress latest;
+    private Consumer<Progress> listener;
+    private long progressIntervalNanos = DEFAULT_PROGRESS_INTERVAL_NANOS;
+    private long nextProgressNanos;
+    private long nextSharedProgressNanos; // guarded by this
+    private boolean progressDue;
+
+    private SearchBudget(SearchBudget parent, boolean shared, long deadlineNanos, long maxBytes, long maxNodes) {
+        this.parent = parent;
+        this.shared = shared;
+        this.startNanos = System.nanoTime();
+        this.deadlineNanos = deadlineNanos;
+        this.maxBytes = maxBytes;
+        this.maxNodes = maxNodes;
+        this.nextProgressNanos = startNanos + progressIntervalNanos;
+    }
+
+    static SearchBudget unlimited() {
+        return new SearchBudget(null, false, 0, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /** A budget starting now; a null time limit or a non-positive byte cap means no limit. */
+    static SearchBudget of(Duration timeLimit, long maxBytes) {
+        return of(timeLimit, maxBytes, 0);
+    }
+
+    /** Same as {@link #of(Duration, long)} with a cap on expanded nodes; non-positive means none. */
+    static SearchBudget of(Duration timeLimit, long maxBytes, long maxNodes) {
+        long deadline = 0;
+        if (timeLimit != null) {
+            deadline = System.nanoTime() + timeLimit.toNanos();
+            if (deadline == 0) deadline = 1;
+        }
+        return new SearchBudget(null, false, deadline, maxBytes > 0 ? maxBytes : Long.MAX_VALUE,
+                maxNodes > 0 ? maxNodes : Long.MAX_VALUE);
+    }
+
+    /** Sends progress snapshots to {@code listener} about every {@code interval}; set before searching. */
+    SearchBudget withProgress(Consumer<Progress> listener, Duration interval) {
+        this.listener = listener;
+        this.progressIntervalNanos = interval.toNanos();
+        this.nextProgressNanos = System.nanoTime() + progressIntervalNanos;
+        return this;
+    }
+
+    /**
+     * A budget for one of several searches run side by side under this one, each on its own
+     * thread. It has the same deadline and is cancelled whenever this budget is. Its nodes and
+     * memory count against this budget's caps together with those of the other shares, so each
+     * cap can be overrun by a few hundred nodes per share. Its progress snapshots are summed with
+     * theirs and passed to this budget's listener. Call {@link #release} when its search ends.
+     */
+    SearchBudget share() {
+        SearchBudget share = new SearchBudget(this, true, deadlineNanos, maxBytes, maxNodes);
+        share.progressIntervalNanos = progressIntervalNanos;
+        share.nextProgressNanos = share.startNanos + progressIntervalNanos;
+        shares.add(share);
+        return share;
+    }
+
+    /** Hands this share's last counts up and gives back the memory it reported; its search is over. */
+    void release() {
+        if (shared) {
+            flush(0);
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * True once cancelled, once {@code memoryBytes} exceeds the cap, once the node cap is used up
+     * (each call counts as one expansion) or once the deadline has passed. The clock is only read
+     * every few hundred calls, so this is cheap enough for every expansion.
+     */
+    boolean shouldStop(long memoryBytes) {
+        if (isCancelled() || memoryBytes > maxBytes || ++nodes > maxNodes) {
+            return true;
+        }
+        if (--clockCountdown <= 0) {
+            clockCountdown = CLOCK_CHECK_INTERVAL;
+            long now = System.nanoTime();
+            checkProgress(now);
+            if (shared && flush(memoryBytes)) {
+                return true;
+            }
+            return deadlineNanos != 0 && deadlinePassed(now);
+        }
+        return false;
+    }
+
+    /**
+     * Counts {@code expanded} nodes at once and reads the clock, for a thread coordinating workers
+     * that polls between batches of their work. The workers poll {@link #isExpired} instead, since
+     * the node count is not safe to update from several threads.
+     */
+    boolean shouldStopAfter(long expanded, long memoryBytes) {
+        nodes += expanded;
+        checkProgress(System.nanoTime());
+        return shouldStopNow(memoryBytes);
+    }
+
+    /** True once cancelled or past the deadline. Counts nothing, so any thread may poll it. */
+    boolean isExpired() {
+        return isCancelled() || deadlineNanos != 0 && deadlinePassed(System.nanoTime());
+    }
+
+    /** Like {@link #shouldStop} but always reads the clock and counts no node, for callers that poll rarely. */
+    boolean shouldStopNow(long memoryBytes) {
+        if (isCancelled() || memoryBytes > maxBytes || nodes > maxNodes) {
+            return true;
+        }
+        if (shared && flush(memoryBytes)) {
+            return true;
+        }
+        return deadlineNanos != 0 && deadlinePassed(System.nanoTime());
+    }
+
+    /** True when a listener or a recording is waiting for the next {@link #report}. */
+    boolean progressDue() {
+        return progressDue;
+    }
+
+    void report(int depth, long frontier, long visited, long expanded) {
+        progressDue = false;
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        Progress progress = new Progress(depth, frontier, visited, expanded, elapsedMillis);
+        SearchProgressEvent event = new SearchProgressEvent();
+        if (event.shouldCommit()) {
+            event.depth = depth;
+            event.frontier = frontier;
+            event.visited = visited;
+            event.expanded = expanded;
+            event.nodesPerSecond = progress.nodesPerSecond();
+            event.commit();
+        }
+        deliver(progress);
+    }
+
+    private void deliver(Progress progress) {
+        latest = progress;
+        if (listener != null) {
+            listener.accept(progress);
+        }
+        if (shared) {
+            parent.shareReported();
+        }
+    }
+
+    /**
+     * Passes on one snapshot for all the shares, at most once per interval: the deepest depth and
+     * the sums of their latest frontier, visited and expanded counts.
+     */
+    private synchronized void shareReported() {
+        long now = System.nanoTime();
+        if (now - nextSharedProgressNanos < 0) {
+            return;
+        }
+        nextSharedProgressNanos = now + progressIntervalNanos;
+        int depth = 0;
+        long frontier = 0, visited = 0, expanded = 0;
+        for (SearchBudget s : shares) {
+            Progress p = s.latest;
+            if (p != null) {
+                depth = Math.max(depth, p.depth());
+                frontier += p.frontier();
+                visited += p.visited();
+                expanded += p.expanded();
+            }
+        }
+        deliver(new Progress(depth, frontier, visited, expanded, (now - startNanos) / 1_000_000));
+    }
+
+    /** True when this budget or one it is a share of has a listener. */
+    private boolean hasListener() {
+        return listener != null || shared && parent.hasListener();
+    }
+
+    /**
+     * Hands the nodes and the change in memory since the last flush up to every budget this is a
+     * share of; true when that puts any of them over a cap.
+     */
+    private boolean flush(long memoryBytes) {
+        long nodeDelta = nodes - flushedNodes;
+        long byteDelta = memoryBytes - flushedBytes;
+        flushedNodes = nodes;
+        flushedBytes = memoryBytes;
+        boolean exceeded = false;
+        for (SearchBudget b = this; b.shared; b = b.parent) {
+            SearchBudget p = b.parent;
+            exceeded |= p.sharedNodes.addAndGet(nodeDelta) > p.maxNodes;
+            exceeded |= p.sharedBytes.addAndGet(byteDelta) > p.maxBytes;
+        }
+        return exceeded;
+    }
+
+    private void checkProgress(long now) {
+        if (now - nextProgressNanos >= 0 && (hasListener() || PROGRESS_EVENT.isEnabled())) {
+            nextProgressNanos = now + progressIntervalNanos;
+            progressDue = true;
+        }
+    }
+
+    private boolean deadlinePassed(long now) {
+        if (now - deadlineNanos > 0) {
+            cancelled = true;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,67 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+
+/** Flight Recorder event spanning one search, committed with its {@link SearchMetrics}. */
+@Name("stacked.Search")
+@Label("Search")
+@Category("Stacked")
+@Description("One solver run, from start to result")
+final class SearchEvent extends jdk.jfr.Event {
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Status")
+    String status;
+
+    @Label("Solution Length")
+    int solutionLength;
+
+    @Label("Expanded Nodes")
+    long expandedNodes;
+
+    @Label("Generated Nodes")
+    long generatedNodes;
+
+    @Label("Expansions per Second")
+    double expansionsPerSecond;
+
+    @Label("Frontier Peak")
+    long frontierPeak;
+
+    @Label("Duplicate Ratio")
+    @Percentage
+    double duplicateRatio;
+
+    @Label("Visited Set Size")
+    @DataAmount
+    long visitedBytes;
+
+    @Label("Allocated per Node")
+    @DataAmount
+    double allocatedBytesPerNode;
+
+    @Label("Max Depth")
+    int maxDepth;
+
+    void finish(SearchMetrics metrics, GameSolver.SearchStatus status, int solutionLength) {
+        if (!shouldCommit()) {
+            return;
+        }
+        this.algorithm = metrics.algorithm();
+        this.status = status.name();
+        this.solutionLength = solutionLength;
+        this.expandedNodes = metrics.expandedNodes();
+        this.generatedNodes = metrics.generatedNodes();
+        this.expansionsPerSecond = metrics.expansionsPerSecond();
+        this.frontierPeak = metrics.frontierPeak();
+        this.duplicateRatio = metrics.duplicateRatio();
+        this.visitedBytes = metrics.visitedBytes();
+        this.allocatedBytesPerNode = metrics.allocatedBytesPerNode();
+        this.maxDepth = metrics.maxDepth();
+        commit();
+    }
+}
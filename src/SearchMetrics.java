@@ -0,0 +1,68 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * What one search did, taken when it ends. Per-depth arrays are indexed by the depth of the
+ * expanded node; for DFS that is the length of the path to it, not its distance from the start.
+ */
+record SearchMetrics(
+        String algorithm,
+        long elapsedNanos,
+        long expandedNodes,
+        long generatedNodes,
+        long duplicateHits,
+        long frontierPeak,
+        long visitedBytes,
+        long allocatedBytes,
+        long[] expandedByDepth,
+        long[] childrenByDepth,
+        long[] prunedByRule
+) {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /** Bytes allocated so far by the current thread, or -1 where the JVM does not track it. */
+    static long threadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    double expansionsPerSecond() {
+        return elapsedNanos == 0 ? 0 : expandedNodes * 1e9 / elapsedNanos;
+    }
+
+    /** Share of generated children that were already known. */
+    double duplicateRatio() {
+        return generatedNodes == 0 ? 0 : (double) duplicateHits / generatedNodes;
+    }
+
+    /** Heap bytes allocated per expansion, or -1 when not measured. */
+    double allocatedBytesPerNode() {
+        return allocatedBytes < 0 ? -1 : expandedNodes == 0 ? 0 : (double) allocatedBytes / expandedNodes;
+    }
+
+    /** New children per expanded node at {@code depth}. */
+    double branchingFactor(int depth) {
+        return depth >= expandedByDepth.length || expandedByDepth[depth] == 0
+                ? 0 : (double) childrenByDepth[depth] / expandedByDepth[depth];
+    }
+
+    /** States proved dead by {@code rule}. Only start states are checked, so this is 0 or 1. */
+    long pruned(DeadlockDetector.Rule rule) {
+        return prunedByRule[rule.ordinal()];
+    }
+
+    /** Deepest depth with an expansion, or -1. */
+    int maxDepth() {
+        return expandedByDepth.length - 1;
+    }
+
+    /** Copies the used prefix of per-depth counters. */
+    static long[] trim(long[] byDepth) {
+        int length = byDepth.length;
+        while (length > 0 && byDepth[length - 1] == 0) length--;
+        return Arrays.copyOf(byDepth, length);
+    }
+}
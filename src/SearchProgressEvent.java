@@ -0,0 +1,26 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Flight Recorder event for a {@link SearchBudget.Progress} snapshot of a running search. */
+@Name("stacked.SearchProgress")
+@Label("Search Progress")
+@Category("Stacked")
+@Description("Periodic snapshot of a running search")
+final class SearchProgressEvent extends jdk.jfr.Event {
+    @Label("Depth")
+    int depth;
+
+    @Label("Frontier")
+    long frontier;
+
+    @Label("Visited Nodes")
+    long visited;
+
+    @Label("Expanded Nodes")
+    long expanded;
+
+    @Label("Nodes per Second")
+    double nodesPerSecond;
+}
@@ -0,0 +1,66 @@
+import java.util.Arrays;
+
+/**
+ * Search tree stored as one int per node: {@code parent << 2 | move}, or -1 for the root.
+ * Node ids are dense, so they can be the ids handed out by {@link StateKeySet}.
+ */
+final class SearchTree {
+    private static final int MAX_NODES = 1 << 29;
+
+    private int[] links = new int[1024];
+    private int size;
+
+    /** Appends a node and returns its id. Pass parent -1 for the root. */
+    int add(int parent, int move) {
+        if (size == MAX_NODES) {
+            throw new OutOfMemoryError("Search tree is full at " + size + " nodes");
+        }
+        if (size == links.length) {
+            links = Arrays.copyOf(links, Math.min(links.length * 2, MAX_NODES));
+        }
+        links[size] = parent < 0 ? -1 : (parent << 2) | move;
+        return size++;
+    }
+
+    /** Re-attaches an existing node under a better parent. */
+    void relink(int id, int parent, int move) {
+        links[id] = (parent << 2) | move;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int parent(int id) {
+        int link = links[id];
+        return link < 0 ? -1 : link >>> 2;
+    }
+
+    int move(int id) {
+        return links[id] & 3;
+    }
+
+    int depth(int id) {
+        int depth = 0;
+        for (int link = links[id]; link >= 0; link = links[link >>> 2]) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /** Moves from the root to {@code id}, rebuilt by walking parent links. */
+    MoveSequence pathTo(int id) {
+        int depth = depth(id);
+        long[] packed = new long[(depth + 31) >>> 5];
+        int i = depth;
+        for (int link = links[id]; link >= 0; link = links[link >>> 2]) {
+            i--;
+            packed[i >>> 5] |= (long) (link & 3) << ((i & 31) << 1);
+        }
+        return MoveSequence.fromPacked(packed, depth);
+    }
+
+    long memoryBytes() {
+        return (long) links.length * Integer.BYTES;
+    }
+}
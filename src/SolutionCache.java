@@ -0,0 +1,395 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exact answers from earlier searches, keyed by the barrier layout plus the pieces of the state's
+ * {@link BoardSymmetry} canonical form, so mirror images and recolorings of a cached state hit too.
+ * Solutions are stored for the canonical state and mapped back onto the state asked about. For an
+ * optimal solution every state along it is stored with its remaining moves, so a board that was
+ * solved once and then partly played by hand is still a hit, as are the (canonical) states that
+ * A* and IDA* generate on the way there.
+ *
+ * <p>Lookups take no lock: entries sit in a ConcurrentHashMap stamped with a use clock, and once
+ * {@code maxEntries} is passed the least recently used eighth is evicted in one sweep, so the
+ * order is approximate. A bitset over the canonical hashes of the entries lets a search skip
+ * the lookup, and its allocations, for a state that cannot be cached. A cache opened on a file can be saved back to it;
+ * the file is a magic number and, oldest first, one {@link PuzzleIO} record plus the solution per
+ * entry.
+ */
+final class SolutionCache {
+    static final int DEFAULT_CAPACITY = 100_000;
+    private static final int FILE_MAGIC = 0x53544B43; // "STKC"
+    private static final int FILTER_BITS_PER_ENTRY = 16;
+
+    private static SolutionCache shared;
+
+    /** Cached answer: an optimal solution, or null when the state cannot be solved. */
+    record Answer(MoveSequence solution) {
+        int distance() {
+            return solution == null ? MergeHeuristic.INFINITE : solution.size();
+        }
+    }
+
+    /** An answer with the clock value of its last use. */
+    private static final class Slot {
+        final Answer answer;
+        volatile long lastUsed;
+
+        Slot(Answer answer, long lastUsed) {
+            this.answer = answer;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /** Board plus the color bitboards, of a canonical state, up to the last non-empty color. */
+    private static final class Key {
+        final Board board;
+        final long[] pieces;
+        final long zobrist;
+        final int hash;
+
+        Key(GameState state) {
+            board = state.getBoard();
+            int words = board.getWords();
+            int colors = state.getNumColors();
+            while (colors > 0 && isEmpty(state, colors - 1, words)) {
+                colors--;
+            }
+            pieces = new long[colors * words];
+            for (int c = 0; c < colors; c++) {
+                for (int i = 0; i < words; i++) {
+                    pieces[c * words + i] = state.colorWord(c, i);
+                }
+            }
+            // Empty colors add nothing to a Zobrist hash, so it matches the trimmed pieces.
+            zobrist = state.zobristHash();
+            hash = 31 * board.hashCode() + Long.hashCode(zobrist);
+        }
+
+        private static boolean isEmpty(GameState state, int color, int words) {
+            for (int i = 0; i < words; i++) {
+                if (state.colorWord(color, i) != 0) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && hash == other.hash
+                    && Arrays.equals(pieces, other.pieces) && board.equals(other.board);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final int maxEntries;
+    private final Path file;
+    private final ConcurrentHashMap<Key, Slot> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final int filterShift;
+    private volatile AtomicLongArray filter; // canonical hashes of the entries, by their top bits
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    SolutionCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    private SolutionCache(int maxEntries, Path file) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.file = file;
+        int bits = Integer.highestOneBit((int) Math.min(1 << 24, Math.max(1 << 12, (long) maxEntries * FILTER_BITS_PER_ENTRY)));
+        this.filterShift = 64 - Integer.numberOfTrailingZeros(bits);
+        this.filter = new AtomicLongArray(bits >>> 6);
+    }
+
+    /** A cache backed by {@code file}, loaded from it when it exists. */
+    static SolutionCache open(Path file, int maxEntries) throws IOException {
+        SolutionCache cache = new SolutionCache(maxEntries, file);
+        if (Files.exists(file)) {
+            cache.load();
+        }
+        return cache;
+    }
+
+    /**
+     * Process-wide cache used by the game window. It is kept in memory only, unless the
+     * {@code stacked.cacheFile} system property names a file to persist it in.
+     */
+    static synchronized SolutionCache shared() {
+        if (shared == null) {
+            String path = System.getProperty("stacked.cacheFile");
+            try {
+                shared = path == null ? new SolutionCache(DEFAULT_CAPACITY) : open(Path.of(path), DEFAULT_CAPACITY);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Ignoring unreadable solution cache " + path + ": " + e);
+                shared = new SolutionCache(DEFAULT_CAPACITY);
+            }
+        }
+        return shared;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    /** The cached answer for {@code state}, or null when it is not known. */
+    Answer get(GameState state) {
+        BoardSymmetry symmetry = new BoardSymmetry(state);
+        GameState canonical = state.copy();
+        symmetry.canonicalState(state, canonical);
+        return find(state, canonical, symmetry);
+    }
+
+    /**
+     * As {@link #get(GameState)}, for a search that has already computed
+     * {@code symmetry.canonicalKey} of {@code state} and got {@code canonicalHash}. The symmetry
+     * must have been made for a state on the same board with as many colors. Most misses are
+     * answered from the hash filter alone. The solution is one for {@code state}.
+     */
+    Answer get(GameState state, BoardSymmetry symmetry, long canonicalHash) {
+        if (!mightContain(canonicalHash)) {
+            misses.increment();
+            return null;
+        }
+        GameState canonical = state.copy();
+        symmetry.canonicalState(state, canonical);
+        return find(state, canonical, symmetry);
+    }
+
+    private Answer find(GameState state, GameState canonical, BoardSymmetry symmetry) {
+        Slot slot = entries.get(new Key(canonical));
+        if (slot == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        slot.lastUsed = clock.get();
+        Answer answer = slot.answer;
+        if (answer.solution() == null) {
+            return answer;
+        }
+        return new Answer(symmetry.mapMoves(canonical, state, answer.solution()));
+    }
+
+    /** A search result built from the cache, or null on a miss. */
+    GameSolver.SearchResult lookup(GameState state) {
+        long startTime = System.nanoTime();
+        Answer answer = get(state);
+        if (answer == null) {
+            return null;
+        }
+        return new GameSolver.SearchResult(answer.solution(), 0, (System.nanoTime() - startTime) / 1_000_000, 0, 0, 0,
+                answer.solution() != null ? GameSolver.SearchStatus.SOLVED : GameSolver.SearchStatus.NO_SOLUTION);
+    }
+
+    /**
+     * Remembers the outcome of a search from {@code state}. Solutions are only kept when
+     * {@code optimal}, since later searches use cached lengths as exact goal distances; a
+     * {@code NO_SOLUTION} result is exact for every algorithm.
+     */
+    void record(GameState state, GameSolver.SearchResult result, boolean optimal) {
+        BoardSymmetry symmetry = new BoardSymmetry(state);
+        if (result.status() == GameSolver.SearchStatus.NO_SOLUTION) {
+            store(state, null, symmetry);
+        } else if (result.status() == GameSolver.SearchStatus.SOLVED && optimal) {
+            MoveSequence solution = result.solution();
+            GameState current = state.copy();
+            for (int i = 0; i <= solution.size(); i++) {
+                MoveSequence.Builder suffix = new MoveSequence.Builder();
+                for (int j = i; j < solution.size(); j++) {
+                    suffix.add(solution.moveAt(j));
+                }
+                store(current, suffix.build(), symmetry);
+                if (i < solution.size()) {
+                    current.move(solution.moveAt(i));
+                }
+            }
+        }
+    }
+
+    /** Stores {@code solution}, a solution for {@code state} or null, under the canonical state. */
+    private void store(GameState state, MoveSequence solution, BoardSymmetry symmetry) {
+        GameState canonical = state.copy();
+        symmetry.canonicalState(state, canonical);
+        if (solution != null) {
+            solution = symmetry.mapMoves(state, canonical, solution);
+        }
+        put(new Key(canonical), new Answer(solution));
+    }
+
+    private void put(Key key, Answer answer) {
+        entries.merge(key, new Slot(answer, clock.incrementAndGet()), (old, added) -> {
+            if (added.answer.distance() < old.answer.distance()) return added;
+            old.lastUsed = added.lastUsed;
+            return old;
+        });
+        addToFilter(filter, key.zobrist);
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    /** Drops the least recently used eighth of the entries and rebuilds the filter from the rest. */
+    private synchronized void evict() {
+        int size = entries.size();
+        if (size <= maxEntries) {
+            return;
+        }
+        long[] uses = new long[size];
+        int n = 0;
+        for (Slot slot : entries.values()) {
+            if (n == uses.length) break;
+            uses[n++] = slot.lastUsed;
+        }
+        Arrays.sort(uses, 0, n);
+        int remove = Math.min(n, size - (maxEntries - maxEntries / 8));
+        if (remove <= 0) {
+            return;
+        }
+        long cutoff = uses[remove - 1];
+        entries.values().removeIf(slot -> slot.lastUsed <= cutoff);
+
+        // A put racing with the rebuild may lose its bit; that only costs it a cache miss.
+        AtomicLongArray rebuilt = new AtomicLongArray(filter.length());
+        for (Key key : entries.keySet()) {
+            addToFilter(rebuilt, key.zobrist);
+        }
+        filter = rebuilt;
+    }
+
+    private boolean mightContain(long canonicalHash) {
+        int bit = (int) (canonicalHash >>> filterShift);
+        return (filter.get(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    private void addToFilter(AtomicLongArray bits, long canonicalHash) {
+        int bit = (int) (canonicalHash >>> filterShift);
+        long mask = 1L << bit;
+        if ((bits.get(bit >>> 6) & mask) == 0) {
+            bits.getAndAccumulate(bit >>> 6, mask, (w, m) -> w | m);
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        filter = new AtomicLongArray(filter.length());
+        hits.reset();
+        misses.reset();
+    }
+
+    /** Writes the cache to its file, if it has one, replacing the file atomically. */
+    synchronized void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            // Hits keep stamping slots, so sort on a copy of the clock values.
+            record Saved(Key key, Answer answer, long lastUsed) {
+            }
+            List<Saved> snapshot = new ArrayList<>(entries.size());
+            entries.forEach((key, slot) -> snapshot.add(new Saved(key, slot.answer, slot.lastUsed)));
+            snapshot.sort(Comparator.comparingLong(Saved::lastUsed));
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(snapshot.size());
+            ByteArrayOutputStream record = new ByteArrayOutputStream(64);
+            for (Saved saved : snapshot) {
+                record.reset();
+                PuzzleIO.writeRecord(toState(saved.key()), record);
+                out.writeInt(record.size());
+                record.writeTo(out);
+                MoveSequence solution = saved.answer().solution();
+                out.writeInt(solution == null ? -1 : solution.size());
+                if (solution != null) {
+                    for (long word : solution.toPackedArray()) {
+                        out.writeLong(word);
+                    }
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a solution cache: " + file);
+            }
+            int count = in.readInt();
+            for (int n = 0; n < count; n++) {
+                byte[] record = new byte[in.readInt()];
+                in.readFully(record);
+                GameState state = PuzzleIO.readRecord(ByteBuffer.wrap(record));
+                int length = in.readInt();
+                MoveSequence solution = null;
+                if (length >= 0) {
+                    long[] packed = new long[(length + 31) >>> 5];
+                    for (int i = 0; i < packed.length; i++) {
+                        packed[i] = in.readLong();
+                    }
+                    solution = MoveSequence.fromPacked(packed, length);
+                }
+                // Files written before keys were canonical hold states as they were played.
+                store(state, solution, new BoardSymmetry(state));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated solution cache: " + file, e);
+        }
+    }
+
+    private static GameState toState(Key key) {
+        Board board = key.board;
+        GameState state = new GameState(board.getWidth(), board.getHeight());
+        int words = board.getWords();
+        long[] barriers = new long[words];
+        for (int i = 0; i < words; i++) {
+            barriers[i] = board.barrierWord(i);
+        }
+        state.setBarriers(barriers);
+        for (int c = 0; c < key.pieces.length / words; c++) {
+            for (int i = 0; i < words; i++) {
+                long w = key.pieces[c * words + i];
+                while (w != 0) {
+                    int cell = (i << 6) + Long.numberOfTrailingZeros(w);
+                    state.addPiece(c, cell % board.getWidth(), cell / board.getWidth());
+                    w &= w - 1;
+                }
+            }
+        }
+        return state;
+    }
+}
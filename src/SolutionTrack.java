@@ -0,0 +1,53 @@
+import java.util.Objects;
+
+/**
+ * A solution together with the states along it, for playback. Every
+ * {@value #CHECKPOINT_INTERVAL}th state is kept packed by a {@link StateCodec}, so the state after
+ * any number of moves is one decode plus fewer than {@value #CHECKPOINT_INTERVAL} replayed moves
+ * away, however long the solution is.
+ */
+final class SolutionTrack {
+    static final int CHECKPOINT_INTERVAL = 16;
+
+    private final MoveSequence moves;
+    private final StateCodec codec;
+    private final long[] checkpoints;
+
+    SolutionTrack(GameState start, MoveSequence moves) {
+        this.moves = moves;
+        this.codec = StateCodec.forState(start);
+        int keyLength = codec.keyLength();
+        this.checkpoints = new long[(moves.size() / CHECKPOINT_INTERVAL + 1) * keyLength];
+        GameState state = start.copy();
+        for (int i = 0; i <= moves.size(); i++) {
+            if (i % CHECKPOINT_INTERVAL == 0) {
+                codec.encode(state, checkpoints, i / CHECKPOINT_INTERVAL * keyLength);
+            }
+            if (i < moves.size()) {
+                state.move(moves.moveAt(i));
+            }
+        }
+    }
+
+    /** Number of moves. */
+    int size() {
+        return moves.size();
+    }
+
+    int moveAt(int index) {
+        return moves.moveAt(index);
+    }
+
+    /**
+     * Overwrites the pieces of {@code state}, which must be on the start state's board, with the
+     * state reached after the first {@code index} moves.
+     */
+    void seek(GameState state, int index) {
+        Objects.checkIndex(index, moves.size() + 1);
+        int checkpoint = index / CHECKPOINT_INTERVAL;
+        codec.decode(checkpoints, checkpoint * codec.keyLength(), state);
+        for (int i = checkpoint * CHECKPOINT_INTERVAL; i < index; i++) {
+            state.move(moves.moveAt(i));
+        }
+    }
+}
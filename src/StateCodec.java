@@ -0,0 +1,66 @@
+/**
+ * Packs the pieces of a GameState into a fixed-length long[] key. Every cell holds a value
+ * 0 (empty) or color + 1, written as {@code planes} bit planes of {@code board.getWords()} longs,
+ * so a key costs ceil(log2(colors + 1)) bitboards instead of one per color.
+ */
+final class StateCodec {
+    private final Board board;
+    private final int numColors;
+    private final int planes;
+    private final int keyLength;
+
+    StateCodec(Board board, int numColors) {
+        this.board = board;
+        this.numColors = numColors;
+        this.planes = Math.max(1, 32 - Integer.numberOfLeadingZeros(numColors));
+        this.keyLength = planes * board.getWords();
+    }
+
+    static StateCodec forState(GameState state) {
+        return new StateCodec(state.getBoard(), state.getNumColors());
+    }
+
+    int keyLength() {
+        return keyLength;
+    }
+
+    void encode(GameState state, long[] key, int off) {
+        checkState(state);
+        int words = board.getWords();
+        for (int i = 0; i < keyLength; i++) {
+            key[off + i] = 0L;
+        }
+        for (int c = 0; c < numColors; c++) {
+            int value = c + 1;
+            for (int p = 0; p < planes; p++) {
+                if ((value & (1 << p)) == 0) continue;
+                for (int i = 0; i < words; i++) {
+                    key[off + p * words + i] |= state.colorWord(c, i);
+                }
+            }
+        }
+    }
+
+    /** Overwrites the pieces of {@code state} (which must share this codec's board) with a decoded key. */
+    void decode(long[] key, int off, GameState state) {
+        checkState(state);
+        int words = board.getWords();
+        for (int c = 0; c < numColors; c++) {
+            int value = c + 1;
+            for (int i = 0; i < words; i++) {
+                long w = -1L;
+                for (int p = 0; p < planes; p++) {
+                    long plane = key[off + p * words + i];
+                    w &= (value & (1 << p)) != 0 ? plane : ~plane;
+                }
+                state.setColorWord(c, i, w & board.validWord(i));
+            }
+        }
+    }
+
+    private void checkState(GameState state) {
+        if (state.getBoard() != board || state.getNumColors() != numColors) {
+            throw new IllegalArgumentException("State does not match codec board");
+        }
+    }
+}
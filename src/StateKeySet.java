@@ -0,0 +1,164 @@
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of fixed-length long[] state keys. Keys are stored back to back in one
+ * growable array and receive dense ids (0, 1, 2, ...) in insertion order; the probe table only
+ * holds id + 1, so nothing is boxed and there is no per-entry object.
+ *
+ * <p>The {@code long hash} overloads take a hash the caller already has, such as a state's Zobrist
+ * hash, instead of hashing the key; keys are then only compared when the hashes match. A set
+ * must be used with caller hashes throughout or not at all.
+ */
+final class StateKeySet {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final float MAX_LOAD = 0.7f;
+
+    private final int keyLength;
+    private long[] keys;
+    private int[] hashes;
+    private int[] table;
+    private int mask;
+    private int size;
+
+    StateKeySet(int keyLength) {
+        this.keyLength = keyLength;
+        this.keys = new long[INITIAL_CAPACITY * keyLength];
+        this.hashes = new int[INITIAL_CAPACITY];
+        this.table = new int[INITIAL_CAPACITY * 2];
+        this.mask = table.length - 1;
+    }
+
+    int keyLength() {
+        return keyLength;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(long[] key, int off) {
+        return indexOf(key, off) >= 0;
+    }
+
+    boolean contains(long[] key, int off, long hash) {
+        return indexOf(key, off, fold(hash)) >= 0;
+    }
+
+    /** Id of the key, or -1 when absent. */
+    int indexOf(long[] key, int off) {
+        return indexOf(key, off, hash(key, off));
+    }
+
+    private int indexOf(long[] key, int off, int h) {
+        for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) return -1;
+            int id = entry - 1;
+            if (hashes[id] == h && keyEquals(id, key, off)) return id;
+        }
+    }
+
+    /** Adds the key and returns true, or returns false when it was already present. */
+    boolean add(long[] key, int off) {
+        return addOrGet(key, off) < 0;
+    }
+
+    boolean add(long[] key, int off, long hash) {
+        return addOrGet(key, off, hash) < 0;
+    }
+
+    /**
+     * Adds the key if absent. Returns {@code -(id + 1)} for a newly added key and {@code id} for an
+     * existing one, so callers can tell both cases apart and still learn the id.
+     */
+    int addOrGet(long[] key, int off) {
+        return addOrGet(key, off, hash(key, off));
+    }
+
+    int addOrGet(long[] key, int off, long hash) {
+        return addOrGet(key, off, fold(hash));
+    }
+
+    private int addOrGet(long[] key, int off, int h) {
+        int slot = h & mask;
+        for (; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) break;
+            int id = entry - 1;
+            if (hashes[id] == h && keyEquals(id, key, off)) return id;
+        }
+
+        int id = size;
+        if (id == hashes.length) {
+            int capacity = hashes.length * 2;
+            if (capacity <= 0 || (long) capacity * keyLength > Integer.MAX_VALUE - 8) {
+                throw new OutOfMemoryError("State set is full at " + size + " states");
+            }
+            keys = Arrays.copyOf(keys, capacity * keyLength);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        System.arraycopy(key, off, keys, id * keyLength, keyLength);
+        hashes[id] = h;
+        table[slot] = id + 1;
+        size++;
+        if (size > table.length * MAX_LOAD) {
+            rehash(table.length * 2);
+        }
+        return -(id + 1);
+    }
+
+    /** Copies the key with the given id into {@code dest}. */
+    void getKey(int id, long[] dest, int off) {
+        System.arraycopy(keys, id * keyLength, dest, off, keyLength);
+    }
+
+    /** Heap bytes held by the set, including unused capacity. */
+    long memoryBytes() {
+        return (long) keys.length * Long.BYTES + (long) hashes.length * Integer.BYTES
+                + (long) table.length * Integer.BYTES;
+    }
+
+    double bytesPerState() {
+        return size == 0 ? 0 : (double) memoryBytes() / size;
+    }
+
+    private boolean keyEquals(int id, long[] key, int off) {
+        int base = id * keyLength;
+        for (int i = 0; i < keyLength; i++) {
+            if (keys[base + i] != key[off + i]) return false;
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    static int hash(long[] key, int off, int length) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ key[off + i]) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private int hash(long[] key, int off) {
+        return hash(key, off, keyLength);
+    }
+
+    private static int fold(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Fixed-size, direct-mapped table of full state keys with the depth they were last reached at.
+ * Memory is set once at construction; colliding entries simply overwrite each other.
+ */
+final class TranspositionTable {
+    private final int keyLength;
+    private final int mask;
+    private final long[] keys;
+    private final int[] depths;
+    private final int[] stamps; // iteration that wrote the entry; 0 = empty
+
+    TranspositionTable(int keyLength, long budgetBytes) {
+        this.keyLength = keyLength;
+        long entryBytes = (long) keyLength * Long.BYTES + 2L * Integer.BYTES;
+        long entries = Math.max(1, budgetBytes / entryBytes);
+        int capacity = Integer.highestOneBit((int) Math.min(entries, 1 << 26));
+        this.mask = capacity - 1;
+        this.keys = new long[capacity * keyLength];
+        this.depths = new int[capacity];
+        this.stamps = new int[capacity];
+    }
+
+    /**
+     * Records that the key was reached at {@code depth} during iteration {@code stamp} (> 0).
+     * Returns true when the same iteration already reached it at the same or a smaller depth,
+     * in which case exploring it again cannot find anything new.
+     */
+    boolean seenNoDeeper(long[] key, int off, int depth, int stamp) {
+        return seenNoDeeper(key, off, StateKeySet.hash(key, off, keyLength), depth, stamp);
+    }
+
+    /** Same as {@link #seenNoDeeper(long[], int, int, int)} with a caller-supplied hash of the key. */
+    boolean seenNoDeeper(long[] key, int off, long hash, int depth, int stamp) {
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        int base = slot * keyLength;
+        if (stamps[slot] == stamp && depths[slot] <= depth && keyEquals(base, key, off)) {
+            return true;
+        }
+        System.arraycopy(key, off, keys, base, keyLength);
+        depths[slot] = depth;
+        stamps[slot] = stamp;
+        return false;
+    }
+
+    long memoryBytes() {
+        return (long) keys.length * Long.BYTES + (long) depths.length * Integer.BYTES
+                + (long) stamps.length * Integer.BYTES;
+    }
+
+    private boolean keyEquals(int base, long[] key, int off) {
+        for (int i = 0; i < keyLength; i++) {
+            if (keys[base + i] != key[off + i]) return false;
+        }
+        return true;
+    }
+}
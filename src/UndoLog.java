@@ -0,0 +1,38 @@
+import java.util.Arrays;
+
+/**
+ * Stack of undo records for {@link GameState#make}: per move, an (index, old word) entry for each
+ * color word the move changed, topped by (changed word count, old hash). A move that merges
+ * nothing and moves few pieces changes only a couple of words, so records stay small.
+ */
+final class UndoLog {
+    private int[] indices = new int[256];
+    private long[] words = new long[256];
+    private int size;
+
+    void push(int index, long word) {
+        if (size == indices.length) {
+            indices = Arrays.copyOf(indices, size * 2);
+            words = Arrays.copyOf(words, size * 2);
+        }
+        indices[size] = index;
+        words[size] = word;
+        size++;
+    }
+
+    int peekIndex() {
+        return indices[size - 1];
+    }
+
+    long peekWord() {
+        return words[size - 1];
+    }
+
+    void pop() {
+        size--;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}